@@ -0,0 +1,76 @@
+package com.cloudempiere.searchindex.test.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import org.compiere.util.DB;
+import org.idempiere.test.AbstractTestCase;
+import org.junit.jupiter.api.Test;
+
+import com.cloudempiere.searchindex.indexprovider.pgtextsearch.PGTextSearchIndexProvider;
+
+/**
+ * Unit tests for the document normalization of the PostgreSQL provider
+ *
+ * The set-based SQL path normalizes with getNormalizeSQL, the event and bulk
+ * paths with toDocumentText and normalizeDocumentContent. Both must produce
+ * the same text, otherwise the tsvector and the content hash differ between
+ * the paths and unchanged rows are rewritten.
+ *
+ * @author CloudEmpiere Team
+ */
+public class DocumentNormalizationTest extends AbstractTestCase {
+
+	@Test
+	public void testEmailIsSplitAtSpecialCharacters() {
+		assertThat(PGTextSearchIndexProvider.normalizeDocumentContent("test@test.com"))
+			.isEqualTo("test@test.com test @ test . com");
+	}
+
+	@Test
+	public void testTextMatchesSQL() {
+		assertSameAsSQL("'test@test.com'::text", "test@test.com");
+		assertSameAsSQL("'  (leading) and trailing-  '::text", "  (leading) and trailing-  ");
+		assertSameAsSQL("E'tab\\tand\\nnew line\\r\\fend\\v'::text", "tab\tand\nnew line\r\fend\u000B");
+		assertSameAsSQL("E'control\\x01char'::text", "control\u0001char");
+		assertSameAsSQL("'O''Reilly [\"quoted\"]'::text", "O'Reilly [\"quoted\"]");
+		assertSameAsSQL("NULL::text", null);
+		assertSameAsSQL("''::text", "");
+	}
+
+	@Test
+	public void testTimestampMatchesSQL() {
+		assertSameAsSQL("TIMESTAMP '2024-01-05 10:00:00'", Timestamp.valueOf("2024-01-05 10:00:00"));
+		assertSameAsSQL("TIMESTAMP '2024-01-05 10:00:00.12'", Timestamp.valueOf("2024-01-05 10:00:00.12"));
+		assertSameAsSQL("TIMESTAMP '2024-01-05 23:59:59.000123'", Timestamp.valueOf("2024-01-05 23:59:59.000123"));
+	}
+
+	@Test
+	public void testNumericMatchesSQL() {
+		assertSameAsSQL("1000000::numeric", new BigDecimal("1000000"));
+		assertSameAsSQL("12.50::numeric", new BigDecimal("12.50"));
+		assertSameAsSQL("0.00000001::numeric", new BigDecimal("0.00000001"));
+		assertSameAsSQL("-3.1::numeric", new BigDecimal("-3.1"));
+		assertSameAsSQL("42::integer", Integer.valueOf(42));
+	}
+
+	@Test
+	public void testBooleanMatchesSQL() {
+		assertSameAsSQL("true", Boolean.TRUE);
+		assertSameAsSQL("false", Boolean.FALSE);
+	}
+
+	/**
+	 * Asserts the SQL normalization of the expression equals the Java normalization of the value
+	 * @param sqlExpression SQL expression of the value
+	 * @param value Java value as read from the database
+	 */
+	private void assertSameAsSQL(String sqlExpression, Object value) {
+		String text = "COALESCE((" + sqlExpression + ")::text, '')";
+		String sqlResult = DB.getSQLValueStringEx(null, "SELECT " + PGTextSearchIndexProvider.getNormalizeSQL(text));
+		String javaResult = PGTextSearchIndexProvider.normalizeDocumentContent(PGTextSearchIndexProvider.toDocumentText(value));
+		assertThat(javaResult).as(sqlExpression).isEqualTo(sqlResult);
+	}
+}
@@ -0,0 +1,76 @@
+package com.cloudempiere.searchindex.test.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.cloudempiere.searchindex.util.SearchIndexBloomFilter;
+
+/**
+ * Unit tests for the Bloom filter of the search index keys
+ *
+ * Verifies that:
+ * - added keys are always reported as contained (no false negatives)
+ * - the false positive rate stays close to the configured bits per key
+ * - the client and table are part of the key
+ *
+ * @author CloudEmpiere Team
+ */
+public class SearchIndexBloomFilterTest {
+
+	private static final int KEYS = 100_000;
+
+	@Test
+	public void testAddedKeys_AreAlwaysContained() {
+		SearchIndexBloomFilter filter = new SearchIndexBloomFilter(KEYS, 10);
+		for (int recordId = 1; recordId <= KEYS; recordId++)
+			filter.put(11, 208, recordId);
+
+		for (int recordId = 1; recordId <= KEYS; recordId++)
+			assertThat(filter.mightContain(11, 208, recordId)).isTrue();
+	}
+
+	@Test
+	public void testFalsePositiveRate_IsBelowTwoPercent() {
+		SearchIndexBloomFilter filter = new SearchIndexBloomFilter(KEYS, 10);
+		for (int recordId = 1; recordId <= KEYS; recordId++)
+			filter.put(11, 208, recordId);
+
+		int falsePositives = 0;
+		for (int recordId = KEYS + 1; recordId <= 2 * KEYS; recordId++) {
+			if (filter.mightContain(11, 208, recordId))
+				falsePositives++;
+		}
+		double observedFpp = (double) falsePositives / KEYS;
+		assertThat(observedFpp).isLessThan(0.02);
+		assertThat(filter.getExpectedFpp()).isLessThan(0.02);
+		assertThat(filter.getMemoryBytes()).isEqualTo(filter.getBitSize() / 8);
+		assertThat(filter.getBitSize()).isGreaterThanOrEqualTo(10L * KEYS);
+	}
+
+	@Test
+	public void testClientAndTable_ArePartOfTheKey() {
+		SearchIndexBloomFilter filter = new SearchIndexBloomFilter(KEYS, 10);
+		for (int recordId = 1; recordId <= KEYS; recordId++)
+			filter.put(11, 208, recordId);
+
+		int otherClient = 0;
+		int otherTable = 0;
+		for (int recordId = 1; recordId <= KEYS; recordId++) {
+			if (filter.mightContain(12, 208, recordId))
+				otherClient++;
+			if (filter.mightContain(11, 259, recordId))
+				otherTable++;
+		}
+		assertThat((double) otherClient / KEYS).isLessThan(0.02);
+		assertThat((double) otherTable / KEYS).isLessThan(0.02);
+	}
+
+	@Test
+	public void testEmptyFilter_ContainsNothing() {
+		SearchIndexBloomFilter filter = new SearchIndexBloomFilter(0, 10);
+
+		assertThat(filter.mightContain(11, 208, 1)).isFalse();
+		assertThat(filter.getExpectedFpp()).isZero();
+	}
+}
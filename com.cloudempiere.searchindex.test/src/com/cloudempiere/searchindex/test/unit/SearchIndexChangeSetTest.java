@@ -0,0 +1,138 @@
+package com.cloudempiere.searchindex.test.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Trx;
+import org.idempiere.test.AbstractTestCase;
+import org.junit.jupiter.api.Test;
+
+import com.cloudempiere.searchindex.event.SearchIndexChangeSet;
+import com.cloudempiere.searchindex.event.SearchIndexCoalescer;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+
+/**
+ * Unit tests for the changes collected during a business transaction
+ *
+ * Verifies that:
+ * - changes of the same index record are equal regardless of the operation
+ * - the change set keeps one change per index record, the latest operation wins
+ * - the changes are submitted when the transaction commits and discarded on rollback
+ *
+ * @author CloudEmpiere Team
+ */
+public class SearchIndexChangeSetTest extends AbstractTestCase {
+
+	private static final int CLIENT_ID = 11;
+	private static final int SEARCH_INDEX_ID = 1000000;
+	private static final int TABLE_ID = 208;
+
+	@Test
+	public void testChangeEquality_OperationIgnored() {
+		SearchIndexChange update = new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID, TABLE_ID, 100, SearchIndexChange.OP_UPDATE);
+		SearchIndexChange delete = new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID, TABLE_ID, 100, SearchIndexChange.OP_DELETE);
+
+		assertThat(update).isEqualTo(delete);
+		assertThat(update.hashCode()).isEqualTo(delete.hashCode());
+		assertThat(delete.isDelete()).isTrue();
+		assertThat(update.isDelete()).isFalse();
+	}
+
+	@Test
+	public void testChangeEquality_KeyFieldsCompared() {
+		SearchIndexChange change = new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID, TABLE_ID, 100, SearchIndexChange.OP_UPDATE);
+
+		assertThat(change).isNotEqualTo(new SearchIndexChange(CLIENT_ID + 1, SEARCH_INDEX_ID, TABLE_ID, 100, SearchIndexChange.OP_UPDATE));
+		assertThat(change).isNotEqualTo(new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID + 1, TABLE_ID, 100, SearchIndexChange.OP_UPDATE));
+		assertThat(change).isNotEqualTo(new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID, TABLE_ID + 1, 100, SearchIndexChange.OP_UPDATE));
+		assertThat(change).isNotEqualTo(new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID, TABLE_ID, 101, SearchIndexChange.OP_UPDATE));
+		// a queued change of the record is not resolved to an index
+		assertThat(change).isNotEqualTo(new SearchIndexChange(CLIENT_ID, TABLE_ID, 100, SearchIndexChange.OP_UPDATE));
+	}
+
+	@Test
+	public void testAdd_LatestOperationWins() {
+		CapturingCoalescer coalescer = new CapturingCoalescer();
+		Trx trx = Trx.get(Trx.createTrxName("SearchIdxChangeSetTest"), true);
+		try {
+			DB.getSQLValueEx(trx.getTrxName(), "SELECT 1 FROM Dual");
+			SearchIndexChangeSet.add(Env.getCtx(), coalescer, List.of(
+					change(100, SearchIndexChange.OP_UPDATE),
+					change(200, SearchIndexChange.OP_UPDATE)), trx.getTrxName());
+			SearchIndexChangeSet.add(Env.getCtx(), coalescer, List.of(
+					change(100, SearchIndexChange.OP_DELETE),
+					change(300, SearchIndexChange.OP_DELETE)), trx.getTrxName());
+			SearchIndexChangeSet.add(Env.getCtx(), coalescer, List.of(
+					change(300, SearchIndexChange.OP_UPDATE)), trx.getTrxName());
+
+			// applied after the commit only
+			assertThat(coalescer.submitted).isEmpty();
+			trx.commit();
+		} finally {
+			trx.close();
+		}
+
+		assertThat(coalescer.submitted)
+			.extracting(SearchIndexChange::getRecordId, SearchIndexChange::getOp)
+			.containsExactlyInAnyOrder(
+					tuple(100, SearchIndexChange.OP_DELETE),
+					tuple(200, SearchIndexChange.OP_UPDATE),
+					tuple(300, SearchIndexChange.OP_UPDATE));
+	}
+
+	@Test
+	public void testAdd_RollbackDiscardsChanges() {
+		CapturingCoalescer coalescer = new CapturingCoalescer();
+		Trx trx = Trx.get(Trx.createTrxName("SearchIdxChangeSetTest"), true);
+		try {
+			DB.getSQLValueEx(trx.getTrxName(), "SELECT 1 FROM Dual");
+			SearchIndexChangeSet.add(Env.getCtx(), coalescer, List.of(change(100, SearchIndexChange.OP_UPDATE)), trx.getTrxName());
+			trx.rollback();
+		} finally {
+			trx.close();
+		}
+
+		assertThat(coalescer.submitted).isEmpty();
+	}
+
+	@Test
+	public void testAdd_WithoutTransaction_SubmittedImmediately() {
+		CapturingCoalescer coalescer = new CapturingCoalescer();
+		SearchIndexChangeSet.add(Env.getCtx(), coalescer, List.of(change(100, SearchIndexChange.OP_UPDATE)), null);
+
+		assertThat(coalescer.submitted).containsExactly(change(100, SearchIndexChange.OP_UPDATE));
+	}
+
+	private SearchIndexChange change(int recordId, String op) {
+		return new SearchIndexChange(CLIENT_ID, SEARCH_INDEX_ID, TABLE_ID, recordId, op);
+	}
+
+	/**
+	 * Keeps the submitted changes instead of applying them
+	 */
+	private static class CapturingCoalescer extends SearchIndexCoalescer {
+
+		private final List<SearchIndexChange> submitted = new ArrayList<>();
+
+		private CapturingCoalescer() {
+			super(null);
+		}
+
+		@Override
+		public void submit(Properties ctx, Collection<SearchIndexChange> changes) {
+			submitted.addAll(changes);
+		}
+
+		@Override
+		public void submitBackground(Properties ctx, Collection<SearchIndexChange> changes) {
+			submitted.addAll(changes);
+		}
+	}
+}
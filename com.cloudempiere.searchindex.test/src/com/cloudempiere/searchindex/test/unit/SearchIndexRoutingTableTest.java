@@ -0,0 +1,159 @@
+package com.cloudempiere.searchindex.test.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.compiere.model.MBPartner;
+import org.compiere.model.MColumn;
+import org.compiere.model.MProduct;
+import org.compiere.model.POInfo;
+import org.compiere.model.Query;
+import org.compiere.util.Env;
+import org.idempiere.test.AbstractTestCase;
+import org.junit.jupiter.api.Test;
+
+import com.cloudempiere.searchindex.event.SearchIndexRoutingTable;
+import com.cloudempiere.searchindex.event.pojo.IndexedTable;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexRoute;
+import com.cloudempiere.searchindex.model.MSearchIndexTable;
+
+/**
+ * Unit tests for the routing of the PO events to the index configurations
+ *
+ * Verifies that:
+ * - every (AD_Client_ID, AD_Table_ID) is found, also when the slots collide
+ * - clients without own configuration are routed to System
+ * - FK tables are routed to the configurations referencing them
+ * - only the indexed columns are in the column bitset of a route
+ *
+ * @author CloudEmpiere Team
+ */
+public class SearchIndexRoutingTableTest extends AbstractTestCase {
+
+	private static final int CLIENT_ID = 11;
+
+	@Test
+	public void testLookup_MainAndFKTable() {
+		IndexedTable product = newConfig(MProduct.Table_Name, MProduct.Table_ID);
+		product.addFKTableId(MBPartner.Table_ID);
+		SearchIndexRoutingTable routing = build(Map.of(CLIENT_ID, Set.of(product)));
+
+		SearchIndexRoute main = routing.get(CLIENT_ID, MProduct.Table_ID);
+		assertThat(main).isNotNull();
+		assertThat(main.getClientId()).isEqualTo(CLIENT_ID);
+		assertThat(main.isMain()).isTrue();
+		assertThat(main.isFK()).isFalse();
+		assertThat(main.getMainConfigs()).containsExactly(product);
+
+		SearchIndexRoute fk = routing.get(CLIENT_ID, MBPartner.Table_ID);
+		assertThat(fk).isNotNull();
+		assertThat(fk.isMain()).isFalse();
+		assertThat(fk.isFK()).isTrue();
+		assertThat(fk.getFKConfigs()).containsExactly(product);
+
+		assertThat(routing.get(CLIENT_ID, 100)).isNull();
+		assertThat(routing.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void testLookup_ManyRoutes_AllFound() {
+		// consecutive clients and tables share the low bits of the key
+		Map<Integer, Set<IndexedTable>> configsByClient = new LinkedHashMap<>();
+		for (int clientId = 1; clientId <= 200; clientId++) {
+			Set<IndexedTable> configs = new LinkedHashSet<>();
+			for (int tableId = 1000; tableId < 1010; tableId++)
+				configs.add(new IndexedTable(1, "idx_test_ts", "Test", tableId, null, null));
+			configsByClient.put(clientId, configs);
+		}
+		SearchIndexRoutingTable routing = build(configsByClient);
+
+		assertThat(routing.size()).isEqualTo(2000);
+		for (int clientId = 1; clientId <= 200; clientId++) {
+			for (int tableId = 1000; tableId < 1010; tableId++) {
+				SearchIndexRoute route = routing.get(clientId, tableId);
+				assertThat(route).isNotNull();
+				assertThat(route.getClientId()).isEqualTo(clientId);
+				assertThat(route.getTableId()).isEqualTo(tableId);
+			}
+			assertThat(routing.get(clientId, 1010)).isNull();
+		}
+	}
+
+	@Test
+	public void testLookup_ClientWithoutConfiguration_RoutedToSystem() {
+		IndexedTable systemProduct = newConfig(MProduct.Table_Name, MProduct.Table_ID);
+		IndexedTable clientPartner = newConfig(MBPartner.Table_Name, MBPartner.Table_ID);
+		Map<Integer, Set<IndexedTable>> configsByClient = new LinkedHashMap<>();
+		configsByClient.put(0, Set.of(systemProduct));
+		configsByClient.put(CLIENT_ID, Set.of(clientPartner));
+		SearchIndexRoutingTable routing = build(configsByClient);
+
+		// the System configurations are part of the routes of a configured client
+		SearchIndexRoute clientRoute = routing.get(CLIENT_ID, MProduct.Table_ID);
+		assertThat(clientRoute.getClientId()).isEqualTo(CLIENT_ID);
+		assertThat(clientRoute.getMainConfigs()).containsExactly(systemProduct);
+
+		// a client without configuration uses the System route
+		SearchIndexRoute systemRoute = routing.get(CLIENT_ID + 1, MProduct.Table_ID);
+		assertThat(systemRoute).isNotNull();
+		assertThat(systemRoute.getClientId()).isEqualTo(0);
+		assertThat(routing.get(CLIENT_ID + 1, MBPartner.Table_ID)).isNull();
+	}
+
+	@Test
+	public void testColumnBits_OnlyIndexedColumns() {
+		IndexedTable product = newConfig(MProduct.Table_Name, MProduct.Table_ID);
+		product.addColumnId(MColumn.getColumn_ID(MProduct.Table_Name, MProduct.COLUMNNAME_Name));
+		SearchIndexRoute route = build(Map.of(CLIENT_ID, Set.of(product))).get(CLIENT_ID, MProduct.Table_ID);
+
+		POInfo poInfo = POInfo.getPOInfo(Env.getCtx(), MProduct.Table_ID);
+		assertThat(route.isIndexedColumn(poInfo.getColumnIndex(MProduct.COLUMNNAME_Name))).isTrue();
+		assertThat(route.isIndexedColumn(poInfo.getColumnIndex(MProduct.COLUMNNAME_Description))).isFalse();
+		assertThat(route.isIndexedColumn(-1)).isFalse();
+		assertThat(route.isIndexedColumn(poInfo.getColumnCount() + 64)).isFalse();
+	}
+
+	@Test
+	public void testColumnBits_BeyondFirstWord() {
+		SearchIndexRoute route = new SearchIndexRoute(CLIENT_ID, MProduct.Table_ID, new IndexedTable[0], new IndexedTable[0],
+				new long[] {1L, 1L << 6});
+
+		assertThat(route.isIndexedColumn(0)).isTrue();
+		assertThat(route.isIndexedColumn(70)).isTrue();
+		assertThat(route.isIndexedColumn(6)).isFalse();
+		assertThat(route.isIndexedColumn(64)).isFalse();
+		assertThat(route.isIndexedColumn(128)).isFalse();
+	}
+
+	@Test
+	public void testIsIndexedColumnChanged() {
+		IndexedTable product = newConfig(MProduct.Table_Name, MProduct.Table_ID);
+		product.addColumnId(MColumn.getColumn_ID(MProduct.Table_Name, MProduct.COLUMNNAME_Name));
+		SearchIndexRoute route = build(Map.of(getAD_Client_ID(), Set.of(product))).get(getAD_Client_ID(), MProduct.Table_ID);
+
+		MProduct record = new Query(Env.getCtx(), MProduct.Table_Name, null, getTrxName())
+				.setClient_ID()
+				.setOrderBy(MProduct.COLUMNNAME_M_Product_ID)
+				.first();
+		assertThat(record).isNotNull();
+		assertThat(route.isIndexedColumnChanged(record)).isFalse();
+
+		record.setDescription("Not indexed " + System.currentTimeMillis());
+		assertThat(route.isIndexedColumnChanged(record)).isFalse();
+
+		record.setName(record.getName() + " changed");
+		assertThat(route.isIndexedColumnChanged(record)).isTrue();
+	}
+
+	private SearchIndexRoutingTable build(Map<Integer, Set<IndexedTable>> configsByClient) {
+		return SearchIndexRoutingTable.build(Env.getCtx(), configsByClient);
+	}
+
+	private IndexedTable newConfig(String tableName, int tableId) {
+		return new IndexedTable(1, "idx_test_ts", tableName, tableId, null, MSearchIndexTable.INDEXINGPOLICY_Synchronous);
+	}
+}
@@ -0,0 +1,602 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.event;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+import org.adempiere.exceptions.DBException;
+import org.compiere.model.MSysConfig;
+import org.compiere.model.MTable;
+import org.compiere.model.PO;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Trx;
+import org.compiere.util.Util;
+
+import com.cloudempiere.searchindex.event.pojo.IndexedTable;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexRoute;
+import com.cloudempiere.searchindex.indexprovider.ISearchIndexProvider;
+import com.cloudempiere.searchindex.indexprovider.SearchIndexProviderRegistry;
+import com.cloudempiere.searchindex.model.MSearchIndex;
+import com.cloudempiere.searchindex.process.CreateSearchIndex;
+import com.cloudempiere.searchindex.util.SearchIndexConfigBuilder;
+import com.cloudempiere.searchindex.util.SearchIndexUtils;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexColumnData;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
+
+/**
+ *
+ * Resolves changed records to the records of the index tables and applies them to the search index providers.<br>
+ * Changes are applied after the business transaction commits, from the {@link SearchIndexChangeSet}
+ * of the transaction or drained from the {@link SearchIndexQueue}.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexChangeProcessor {
+
+	/**	Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexChangeProcessor.class);
+
+	/** Alias of the main table in the filter of a configuration */
+	private static final String MAIN_ALIAS = "main";
+	/** Reference to the main table alias in a filter */
+	private static final Pattern MAIN_ALIAS_PATTERN = Pattern.compile("\\bmain\\.", Pattern.CASE_INSENSITIVE);
+
+	/** Indexed tables of a client including System, argument is AD_Client_ID */
+	private final IntFunction<Set<IndexedTable>> indexedTables;
+
+	/**
+	 * @param indexedTables - indexed tables of a client including System, argument is AD_Client_ID
+	 */
+	public SearchIndexChangeProcessor(IntFunction<Set<IndexedTable>> indexedTables) {
+		this.indexedTables = indexedTables;
+	}
+
+	/**
+	 * Resolve a changed record to the records of the index tables.
+	 * A record of an index table resolves to itself, a record of an FK table
+	 * to the main records referencing it, selected by key without loading the record.
+	 * @param ctx
+	 * @param change - changed record
+	 * @param trxName - transaction to read the record
+	 * @return changes of index records
+	 */
+	public Set<SearchIndexChange> resolve(Properties ctx, SearchIndexChange change, String trxName) {
+		Set<SearchIndexChange> resolved = new LinkedHashSet<>();
+		Set<IndexedTable> tables = indexedTables.apply(change.getClientId());
+		if (tables == null)
+			return resolved;
+
+		MTable table = MTable.get(ctx, change.getTableId());
+		if (table == null)
+			return resolved;
+		List<Integer> fkIds = Collections.singletonList(change.getRecordId());
+		for (IndexedTable indexedTable : tables) {
+			if (indexedTable.getTableId() == change.getTableId()) {
+				resolved.add(new SearchIndexChange(change.getClientId(), indexedTable.getSearchIndexId(), change.getTableId(), change.getRecordId(), change.getOp()));
+			} else if (!change.isDelete() && indexedTable.getFKTableNames().contains(table.getTableName())) {
+				// only the keys are read, the FK record is not loaded
+				for (int mainRecordId : getMainIDsOfTable(table, fkIds, indexedTable, ctx, trxName)) {
+					resolved.add(new SearchIndexChange(change.getClientId(), indexedTable.getSearchIndexId(), indexedTable.getTableId(), mainRecordId, SearchIndexChange.OP_UPDATE));
+				}
+			}
+		}
+		return resolved;
+	}
+
+	/**
+	 * Apply changes of index records.<br>
+	 * The changes are grouped by search index, table and operation and applied in chunks
+	 * (SysConfig SEARCH_INDEX_REINDEX_CHUNK_SIZE), each chunk is read with a single query.
+	 * All chunks are written in one index transaction, if it fails each chunk is retried
+	 * in its own index transaction.
+	 * @param ctx - context of the client of the changes
+	 * @param changes - resolved changes, see {@link #resolve(Properties, SearchIndexChange, String)}
+	 * @param trxName - transaction to read the records, null to read committed data
+	 * @return number of applied changes
+	 */
+	public int apply(Properties ctx, Collection<SearchIndexChange> changes, String trxName) {
+		return apply(ctx, changes, trxName, null);
+	}
+
+	/**
+	 * Apply changes of index records, see {@link #apply(Properties, Collection, String)}
+	 * @param ctx - context of the client of the changes
+	 * @param changes - resolved changes
+	 * @param trxName - transaction to read the records, null to read committed data
+	 * @param failed - changes not applied because their chunk failed (out), may be null
+	 * @return number of applied changes
+	 */
+	public int apply(Properties ctx, Collection<SearchIndexChange> changes, String trxName, Collection<SearchIndexChange> failed) {
+		// key is AD_SearchIndex_ID, AD_Table_ID and operation, value is Record_IDs
+		Map<SearchIndexChange, List<Integer>> recordsByGroup = new LinkedHashMap<>();
+		for (SearchIndexChange change : changes) {
+			// the operation is not compared, Record_ID -1 separates the deletes
+			SearchIndexChange group = new SearchIndexChange(change.getClientId(), change.getSearchIndexId(), change.getTableId(), change.isDelete() ? -1 : 0, change.getOp());
+			recordsByGroup.computeIfAbsent(group, k -> new ArrayList<>()).add(change.getRecordId());
+		}
+
+		int chunkSize = MSysConfig.getIntValue(CreateSearchIndex.SYSCONFIG_REINDEX_CHUNK_SIZE, SearchIndexConfigBuilder.DEFAULT_CHUNK_SIZE, Env.getAD_Client_ID(ctx));
+		if (chunkSize <= 0)
+			chunkSize = SearchIndexConfigBuilder.DEFAULT_CHUNK_SIZE;
+		List<SearchIndexChange> chunkGroups = new ArrayList<>();
+		List<int[]> chunks = new ArrayList<>();
+		int total = 0;
+		for (Map.Entry<SearchIndexChange, List<Integer>> entry : recordsByGroup.entrySet()) {
+			List<Integer> recordIds = entry.getValue();
+			for (int from = 0; from < recordIds.size(); from += chunkSize) {
+				chunkGroups.add(entry.getKey());
+				chunks.add(recordIds.subList(from, Math.min(from + chunkSize, recordIds.size())).stream().mapToInt(Integer::intValue).toArray());
+			}
+			total += recordIds.size();
+		}
+		if (chunks.isEmpty())
+			return 0;
+
+		// one index transaction and commit for the whole batch
+		boolean success = executeIndexUpdateWithSeparateTransaction(indexTrxName -> {
+			for (int i = 0; i < chunks.size(); i++)
+				apply(ctx, chunkGroups.get(i), chunks.get(i), trxName, indexTrxName);
+		});
+		if (success)
+			return total;
+		if (chunks.size() == 1) {
+			addFailed(failed, chunkGroups.get(0), chunks.get(0));
+			return 0;
+		}
+
+		// isolate the failing chunk, the others are still applied
+		log.warning("Search index batch of " + total + " changes failed, retrying " + chunks.size() + " chunks separately");
+		int count = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			SearchIndexChange group = chunkGroups.get(i);
+			int[] chunk = chunks.get(i);
+			if (executeIndexUpdateWithSeparateTransaction(indexTrxName -> apply(ctx, group, chunk, trxName, indexTrxName))) {
+				count += chunk.length;
+			} else {
+				addFailed(failed, group, chunk);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Add the changes of a failed chunk
+	 * @param failed - failed changes (out), may be null
+	 * @param group - search index, table and operation of the chunk
+	 * @param recordIds - Record_IDs of the chunk
+	 */
+	private void addFailed(Collection<SearchIndexChange> failed, SearchIndexChange group, int[] recordIds) {
+		if (failed == null)
+			return;
+		for (int recordId : recordIds)
+			failed.add(new SearchIndexChange(group.getClientId(), group.getSearchIndexId(), group.getTableId(), recordId, group.getOp()));
+	}
+
+	/**
+	 * Apply changes of index records of a table, records no longer indexed (inactive, filtered) are removed
+	 * @param ctx
+	 * @param group - search index, table and operation of the changes
+	 * @param recordIds - Record_IDs
+	 * @param trxName - transaction to read the records
+	 * @param indexTrxName - transaction to write the index
+	 */
+	private void apply(Properties ctx, SearchIndexChange group, int[] recordIds, String trxName, String indexTrxName) {
+		MSearchIndex searchIndex = MSearchIndex.get(ctx, group.getSearchIndexId(), null);
+		if (searchIndex == null)
+			return;
+		ISearchIndexProvider provider = SearchIndexProviderRegistry.get(ctx, searchIndex.getAD_SearchIndexProvider_ID());
+		if (provider == null)
+			return;
+
+		Set<Integer> toDelete = new LinkedHashSet<>();
+		for (int recordId : recordIds)
+			toDelete.add(recordId);
+		if (!group.isDelete()) {
+			SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
+					.setCtx(ctx)
+					.setTrxName(trxName)
+					.setAD_SearchIndex_ID(group.getSearchIndexId())
+					.setRecords(group.getTableId(), recordIds);
+			Map<Integer, Set<SearchIndexTableData>> data = builder.build().getData(false);
+			if (removeIndexed(data, toDelete))
+				provider.updateIndex(ctx, data, indexTrxName);
+		}
+		if (toDelete.isEmpty())
+			return;
+
+		StringBuilder whereClause = new StringBuilder();
+		whereClause.append(" AD_Client_ID=? AND AD_Table_ID=? AND ");
+		List<Object> params = new ArrayList<>();
+		params.add(group.getClientId());
+		params.add(group.getTableId());
+		// a chunk may exceed the IN list limit of Oracle
+		SearchIndexUtils.appendInList(whereClause, "Record_ID", toDelete, params);
+		provider.deleteIndex(ctx, searchIndex.getSearchIndexName(), whereClause.toString(), params.toArray(), indexTrxName);
+	}
+
+	/**
+	 * Remove the records contained in the data of the search indexes
+	 * @param data - key is AD_SearchIndex_ID
+	 * @param recordIds - Record_IDs, the indexed ones are removed (in/out)
+	 * @return true if any record
+	 */
+	private boolean removeIndexed(Map<Integer, Set<SearchIndexTableData>> data, Set<Integer> recordIds) {
+		if (data == null)
+			return false;
+		boolean hasRecords = false;
+		for (Set<SearchIndexTableData> tableDataSet : data.values()) {
+			for (SearchIndexTableData tableData : tableDataSet) {
+				for (Map<String, SearchIndexColumnData> columnData : tableData.getColumnData()) {
+					hasRecords = true;
+					SearchIndexColumnData recordIdData = columnData.get("Record_ID");
+					if (recordIdData != null && recordIdData.getValue() instanceof Number)
+						recordIds.remove(((Number) recordIdData.getValue()).intValue());
+				}
+			}
+		}
+		return hasRecords;
+	}
+
+	/**
+	 * Execute index update with separate transaction (ADR-001: Transaction Isolation)
+	 *
+	 * This method wraps index operations in a dedicated transaction to prevent:
+	 * - Index failures from rolling back business transactions
+	 * - Long-running index updates from holding business transaction locks
+	 * - Tight coupling between business logic and index maintenance
+	 *
+	 * @param operation Lambda/Consumer that performs the index operation
+	 * @return true if the index transaction was committed
+	 */
+	static boolean executeIndexUpdateWithSeparateTransaction(Consumer<String> operation) {
+		// Create separate transaction for index operations
+		Trx indexTrx = Trx.get(Trx.createTrxName("SearchIdx"), true);
+		try {
+			String indexTrxName = indexTrx.getTrxName();
+
+			// Perform index operation with separate transaction
+			operation.accept(indexTrxName);
+
+			// Commit the index transaction
+			indexTrx.commit();
+			return true;
+		} catch (Exception e) {
+			// Rollback on error
+			indexTrx.rollback();
+			// Log the error but don't throw - index failure shouldn't fail business transaction
+			log.severe("Failed to update search index: " + e.getMessage());
+			if (log.isLoggable(Level.FINE))
+				log.log(Level.FINE, "Search index update failed", e);
+			return false;
+		} finally {
+			// Always close the transaction
+			indexTrx.close();
+		}
+	}
+
+	/**
+	 * Get the changes of the index records of a changed record of a main table.
+	 * The filters of all main configurations are evaluated by a single query of the record,
+	 * a record not passing the filter of a search index containing it is updated there, which removes it.
+	 * @param po - changed record
+	 * @param route - configurations of the table of the record
+	 * @param isRecordLevel - only search indexes already containing the record
+	 * @param op - operation, deletes are not filtered
+	 * @param ctx
+	 * @param trxName
+	 * @return changes of index records
+	 */
+	static Set<SearchIndexChange> getMainChanges(PO po, SearchIndexRoute route, boolean isRecordLevel, String op, Properties ctx, String trxName) {
+		Set<SearchIndexChange> changes = new LinkedHashSet<>();
+		IndexedTable[] tableConfigs = route.getMainConfigs();
+		if (tableConfigs.length == 0)
+			return changes;
+
+		int recordId = po.get_ID() > 0 ? po.get_ID() : po.get_IDOld();
+		// the deleted record can not be read, removing a record not indexed is harmless
+		boolean[] matches = SearchIndexChange.OP_DELETE.equals(op) ? null : matchWhereClauses(po, recordId, tableConfigs, trxName);
+		for (int i = 0; i < tableConfigs.length; i++) {
+			IndexedTable tableConfig = tableConfigs[i];
+			boolean isMatch = matches == null || matches[i];
+			// a record no longer passing the filter is updated if indexed, the update removes it from the index
+			if ((isRecordLevel || !isMatch) && !MSearchIndex.containsRecord(ctx, po.getAD_Client_ID(), po.get_Table_ID(), recordId, tableConfig.getSearchIndexName(), null))
+				continue;
+			changes.add(new SearchIndexChange(po.getAD_Client_ID(), tableConfig.getSearchIndexId(), po.get_Table_ID(), recordId, isMatch ? op : SearchIndexChange.OP_UPDATE));
+		}
+		return changes;
+	}
+
+	/**
+	 * Evaluate the filters of the main configurations for a record with a single query,
+	 * each filter in its own subquery with the alias it refers to the main table by
+	 * @param po - record of the main table
+	 * @param recordId - Record_ID
+	 * @param tableConfigs - main configurations of the table
+	 * @param trxName
+	 * @return true at the index of a configuration whose filter the record passes
+	 */
+	private static boolean[] matchWhereClauses(PO po, int recordId, IndexedTable[] tableConfigs, String trxName) {
+		boolean[] matches = new boolean[tableConfigs.length];
+		String[] keyColumns = po.get_KeyColumns();
+		String tableName = po.get_TableName();
+		StringBuilder select = new StringBuilder();
+		int paramCount = 0;
+		for (int i = 0; i < tableConfigs.length; i++) {
+			String whereClause = tableConfigs[i].getWhereClause();
+			if (Util.isEmpty(whereClause, true)) {
+				matches[i] = true;
+			} else if (keyColumns != null && keyColumns.length == 1) {
+				String alias = getMainTableAlias(tableName, whereClause);
+				select.append(select.length() > 0 ? ", " : "").append("CASE WHEN EXISTS (SELECT 1 FROM ").append(tableName);
+				if (!alias.equals(tableName))
+					select.append(" ").append(alias);
+				select.append(" WHERE ").append(alias).append(".").append(keyColumns[0]).append("=? AND (").append(whereClause)
+					.append(")) THEN 'Y' ELSE 'N' END");
+				paramCount++;
+			}
+		}
+		if (select.length() == 0)
+			return matches;
+
+		String sql = "SELECT " + select + " FROM Dual";
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = DB.prepareStatement(sql, trxName);
+			for (int i = 1; i <= paramCount; i++)
+				pstmt.setInt(i, recordId);
+			rs = pstmt.executeQuery();
+			if (rs.next()) {
+				int column = 1;
+				for (int i = 0; i < tableConfigs.length; i++) {
+					if (!matches[i])
+						matches[i] = "Y".equals(rs.getString(column++));
+				}
+			}
+		} catch (SQLException e) {
+			throw new DBException(e, sql);
+		} finally {
+			DB.close(rs, pstmt);
+		}
+		return matches;
+	}
+
+	/**
+	 * Get the changes of the index records referencing a changed record of an FK table.
+	 * Only the keys of the main records are selected, the records are rebuilt set-based when the changes are applied.
+	 * @param po - changed record
+	 * @param route - configurations of the table of the record
+	 * @param ctx
+	 * @param trxName
+	 * @return changes of index records
+	 */
+	static Set<SearchIndexChange> getFanOutChanges(PO po, SearchIndexRoute route, Properties ctx, String trxName) {
+		Set<SearchIndexChange> changes = new LinkedHashSet<>();
+		for (IndexedTable tableConfig : route.getFKConfigs()) {
+			for (int mainRecordId : getMainIDsOfTable(po, tableConfig.getTableName(), tableConfig.getWhereClause(), ctx, trxName)) {
+				changes.add(new SearchIndexChange(po.getAD_Client_ID(), tableConfig.getSearchIndexId(), tableConfig.getTableId(), mainRecordId, SearchIndexChange.OP_UPDATE));
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Get the changes of the index records of changed records of a main table collected in bulk mode.
+	 * The filters are not evaluated, records not passing them are removed from the index when the changes are applied.
+	 * @param route - configurations of the table of the records
+	 * @param records - changed records, Record_ID and operation
+	 * @return changes of index records
+	 */
+	static Set<SearchIndexChange> getMainChanges(SearchIndexRoute route, Collection<SearchIndexChange> records) {
+		Set<SearchIndexChange> changes = new LinkedHashSet<>();
+		for (IndexedTable tableConfig : route.getMainConfigs()) {
+			for (SearchIndexChange record : records) {
+				changes.add(new SearchIndexChange(record.getClientId(), tableConfig.getSearchIndexId(), record.getTableId(), record.getRecordId(), record.getOp()));
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Get the changes of the index records referencing changed records of an FK table collected in bulk mode,
+	 * with one query per configuration and chunk of keys
+	 * @param route - configurations of the table of the records
+	 * @param clientId - AD_Client_ID of the records
+	 * @param recordIds - Record_IDs of the FK table
+	 * @param ctx
+	 * @param trxName
+	 * @return changes of index records
+	 */
+	static Set<SearchIndexChange> getFanOutChanges(SearchIndexRoute route, int clientId, Collection<Integer> recordIds, Properties ctx, String trxName) {
+		Set<SearchIndexChange> changes = new LinkedHashSet<>();
+		if (recordIds.isEmpty())
+			return changes;
+		MTable fkTable = MTable.get(ctx, route.getTableId());
+		List<Integer> ids = new ArrayList<>(recordIds);
+		for (IndexedTable tableConfig : route.getFKConfigs()) {
+			// Oracle limits an IN list to 1000 values
+			for (int from = 0; from < ids.size(); from += SearchIndexUtils.MAX_IN_LIST_SIZE) {
+				for (int mainRecordId : getMainIDsOfTable(fkTable, ids.subList(from, Math.min(from + SearchIndexUtils.MAX_IN_LIST_SIZE, ids.size())), tableConfig, ctx, trxName)) {
+					changes.add(new SearchIndexChange(clientId, tableConfig.getSearchIndexId(), tableConfig.getTableId(), mainRecordId, SearchIndexChange.OP_UPDATE));
+				}
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Get the keys of the main records referencing records of an FK table with a single query.
+	 * The one to one relation is used only if the main table has no column referencing the FK table.
+	 * @param fkTable - FK table
+	 * @param fkIds - Record_IDs of the FK table
+	 * @param tableConfig - configuration of the main table
+	 * @param ctx
+	 * @param trxName
+	 * @return Record_IDs of the main table
+	 */
+	private static int[] getMainIDsOfTable(MTable fkTable, List<Integer> fkIds, IndexedTable tableConfig, Properties ctx, String trxName) {
+		StringBuilder inList = new StringBuilder();
+		for (int fkId : fkIds) {
+			inList.append(inList.length() > 0 ? "," : "").append(fkId);
+		}
+
+		MTable mainTable = MTable.get(ctx, tableConfig.getTableName(), trxName);
+		String alias = getMainTableAlias(mainTable.getTableName(), tableConfig.getWhereClause());
+		StringBuilder relation = new StringBuilder();
+		// one to many
+		for (String keyCol : fkTable.getKeyColumns()) {
+			if (mainTable.columnExistsInDictionary(keyCol))
+				relation.append(relation.length() > 0 ? " OR " : "").append(alias).append(".").append(keyCol).append(" IN (").append(inList).append(")");
+		}
+		// one to one
+		if (relation.length() == 0 && fkTable.getKeyColumns().length == 1) {
+			for (String keyCol : mainTable.getKeyColumns()) {
+				if (fkTable.columnExistsInDictionary(keyCol))
+					relation.append(relation.length() > 0 ? " OR " : "").append(alias).append(".").append(keyCol)
+						.append(" IN (SELECT fk.").append(keyCol).append(" FROM ").append(fkTable.getTableName()).append(" fk WHERE fk.")
+						.append(fkTable.getKeyColumns()[0]).append(" IN (").append(inList).append("))");
+			}
+		}
+		if (relation.length() == 0)
+			return new int[0];
+		return getMainIDs(mainTable, alias, relation.toString(), tableConfig.getWhereClause(), trxName);
+	}
+
+	/**
+	 * Get the keys of the main records referencing a record of an FK table.
+	 * The one to one relation is used only if the main table has no column referencing the FK table,
+	 * the same rule as {@link #getMainIDsOfTable(MTable, List, IndexedTable, Properties, String)}.
+	 * @param po - record of the FK table
+	 * @param mainTableName
+	 * @param whereClause - filter of the main records
+	 * @param ctx
+	 * @param trxName
+	 * @return Record_IDs of the main table
+	 */
+	static int[] getMainIDsOfTable(PO po, String mainTableName, String whereClause, Properties ctx, String trxName) {
+		MTable mainTable = MTable.get(ctx, mainTableName, trxName);
+		String alias = getMainTableAlias(mainTable.getTableName(), whereClause);
+		int poId = po.get_ID() > 0 ? po.get_ID() : po.get_IDOld();
+		StringBuilder relation = new StringBuilder();
+		// one to many
+		for (String keyCol : po.get_KeyColumns()) {
+			if (mainTable.columnExistsInDictionary(keyCol))
+				relation.append(relation.length() > 0 ? " OR " : "").append(alias).append(".").append(keyCol).append("=").append(poId);
+		}
+		if (relation.length() > 0)
+			return getMainIDs(mainTable, alias, relation.toString(), whereClause, trxName);
+
+		// one to one
+		Set<Integer> mainIDSet = new LinkedHashSet<>();
+		for (String keyCol : mainTable.getKeyColumns()) {
+			if (po.columnExists(keyCol)) {
+				int recordId = po.get_ValueAsInt(keyCol);
+				if (recordId <= 0)
+					continue;
+				if (Util.isEmpty(whereClause, true)) {
+					mainIDSet.add(recordId);
+				} else {
+					for (int mainRecordId : getMainIDs(mainTable, alias, alias + "." + keyCol + "=" + recordId, whereClause, trxName)) {
+						mainIDSet.add(mainRecordId);
+					}
+				}
+			}
+		}
+		return mainIDSet.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Select the keys of the main records matching a relation and the filter of the main configuration
+	 * @param mainTable
+	 * @param alias - main table name or alias used by the filter, see {@link #getMainTableAlias(String, String)}
+	 * @param relation - condition on the columns of the main table qualified by the alias
+	 * @param whereClause - filter of the main records, may be empty
+	 * @param trxName
+	 * @return Record_IDs of the main table
+	 */
+	private static int[] getMainIDs(MTable mainTable, String alias, String relation, String whereClause, String trxName) {
+		StringBuilder sql = new StringBuilder("SELECT DISTINCT ").append(alias).append(".").append(mainTable.getKeyColumns()[0])
+				.append(" FROM ").append(mainTable.getTableName());
+		if (!alias.equals(mainTable.getTableName()))
+			sql.append(" ").append(alias);
+		sql.append(" WHERE (").append(relation).append(")");
+		if (!Util.isEmpty(whereClause, true))
+			sql.append(" AND (").append(whereClause).append(")");
+		return DB.getIDsEx(trxName, sql.toString());
+	}
+
+	/**
+	 * Get the name used to qualify the main table columns, the filter of a configuration
+	 * may refer to the main table by the alias "main" or by its name
+	 * @param mainTableName
+	 * @param whereClause - filter of the main records
+	 * @return "main" if the filter uses the alias, the table name otherwise
+	 */
+	static String getMainTableAlias(String mainTableName, String whereClause) {
+		if (!Util.isEmpty(whereClause, true) && MAIN_ALIAS_PATTERN.matcher(whereClause).find())
+			return MAIN_ALIAS;
+		return mainTableName;
+	}
+
+	/**
+	 * Get the main records of a deleted FK record from its own values (one to one relation),
+	 * the record can not be read after the delete is committed
+	 * @param po - deleted record
+	 * @param tableConfigs
+	 * @return changes of index records
+	 */
+	static List<SearchIndexChange> getMainChangesOfDeleted(PO po, Set<IndexedTable> tableConfigs) {
+		List<SearchIndexChange> changes = new ArrayList<>();
+		for (IndexedTable tableConfig : tableConfigs) {
+			if (!tableConfig.getFKTableNames().contains(po.get_TableName()))
+				continue;
+			MTable mainTable = MTable.get(po.getCtx(), tableConfig.getTableName());
+			for (String keyCol : mainTable.getKeyColumns()) {
+				if (po.columnExists(keyCol)) {
+					int recordId = po.get_ValueAsInt(keyCol);
+					if (recordId > 0)
+						changes.add(new SearchIndexChange(po.getAD_Client_ID(), tableConfig.getSearchIndexId(), tableConfig.getTableId(), recordId, SearchIndexChange.OP_UPDATE));
+				}
+			}
+		}
+		return changes;
+	}
+}
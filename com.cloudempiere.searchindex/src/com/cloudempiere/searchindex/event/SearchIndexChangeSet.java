@@ -0,0 +1,279 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.model.PO;
+import org.compiere.util.CLogger;
+import org.compiere.util.Trx;
+import org.compiere.util.TrxEventListener;
+
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexRoute;
+
+/**
+ *
+ * Changes of index records collected during a business transaction.<br>
+ * Every record is kept once with its latest operation and applied after the
+ * transaction commits, reading the committed data. The changes of a rolled back
+ * transaction are discarded, so the index never contains uncommitted data.<br>
+ * A transaction with more events than SysConfig SEARCH_INDEX_BULK_THRESHOLD (mass import,
+ * batch process) switches to bulk mode: the further events only collect the keys of the
+ * changed records, they are resolved with set-based queries when the transaction commits.
+ * The events are counted per commit, a reused transaction starts again in normal mode.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexChangeSet implements TrxEventListener {
+
+	/**	Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexChangeSet.class);
+
+	/** Number of events of a transaction switching it to bulk mode, 0 disables bulk mode */
+	public static final String SYSCONFIG_BULK_THRESHOLD = "SEARCH_INDEX_BULK_THRESHOLD";
+
+	/** Open change sets, key is trxName */
+	private static final Map<String, SearchIndexChangeSet> s_changeSets = new ConcurrentHashMap<>();
+
+	/** Context of the business transaction */
+	private final Properties ctx;
+	/** Applies the changes */
+	private final SearchIndexCoalescer coalescer;
+	/** Changes, one per index record */
+	private final Set<SearchIndexChange> changes = new LinkedHashSet<>();
+	/** Changes of the index records referencing changed FK records, applied in the background */
+	private final Set<SearchIndexChange> fanOutChanges = new LinkedHashSet<>();
+	/** Number of added changes, including duplicates */
+	private int addedCount = 0;
+	/** Number of events of the transaction since its last commit or rollback */
+	private int eventCount = 0;
+	/** Bulk mode, kept until the transaction commits or rolls back */
+	private boolean isBulk = false;
+	/** Changed records collected in bulk mode, by route of their table */
+	private final Map<SearchIndexRoute, Set<SearchIndexChange>> bulkRecords = new LinkedHashMap<>();
+
+	/**
+	 * @param ctx - context of the business transaction
+	 * @param coalescer - applies the changes
+	 */
+	private SearchIndexChangeSet(Properties ctx, SearchIndexCoalescer coalescer) {
+		this.ctx = ctx;
+		this.coalescer = coalescer;
+	}
+
+	/**
+	 * Add changes of index records to the change set of a transaction.
+	 * Without an active transaction the changes are applied immediately.
+	 * @param ctx
+	 * @param coalescer - applies the changes
+	 * @param changes - resolved changes
+	 * @param trxName - business transaction
+	 */
+	public static void add(Properties ctx, SearchIndexCoalescer coalescer, Collection<SearchIndexChange> changes, String trxName) {
+		if (changes.isEmpty())
+			return;
+		Trx trx = trxName != null ? Trx.get(trxName, false) : null;
+		if (trx == null) {
+			// already committed
+			coalescer.submit(ctx, changes);
+			return;
+		}
+		get(ctx, coalescer, trx).add(changes);
+	}
+
+	/**
+	 * Add changes of the index records referencing a changed FK record to the change set of a transaction.
+	 * They are applied set-based in the background after the transaction commits.
+	 * @param ctx
+	 * @param coalescer - applies the changes
+	 * @param changes - resolved changes
+	 * @param trxName - business transaction
+	 */
+	public static void addFanOut(Properties ctx, SearchIndexCoalescer coalescer, Collection<SearchIndexChange> changes, String trxName) {
+		if (changes.isEmpty())
+			return;
+		Trx trx = trxName != null ? Trx.get(trxName, false) : null;
+		if (trx == null) {
+			// already committed
+			coalescer.submitBackground(ctx, changes);
+			return;
+		}
+		SearchIndexChangeSet changeSet = get(ctx, coalescer, trx);
+		synchronized (changeSet) {
+			changeSet.fanOutChanges.addAll(changes);
+		}
+	}
+
+	/**
+	 * Count an event of a transaction and collect the changed record if the transaction is in bulk mode
+	 * @param ctx
+	 * @param coalescer - applies the changes
+	 * @param route - configurations of the table of the record
+	 * @param po - new or changed record
+	 * @param trxName - business transaction
+	 * @return true if the record is collected, false if the event is handled on its own
+	 */
+	public static boolean addBulk(Properties ctx, SearchIndexCoalescer coalescer, SearchIndexRoute route, PO po, String trxName) {
+		int threshold = MSysConfig.getIntValue(SYSCONFIG_BULK_THRESHOLD, 1000, po.getAD_Client_ID());
+		if (threshold <= 0)
+			return false;
+		Trx trx = trxName != null ? Trx.get(trxName, false) : null;
+		if (trx == null)
+			return false;
+		SearchIndexChangeSet changeSet = get(ctx, coalescer, trx);
+		synchronized (changeSet) {
+			if (!changeSet.isBulk) {
+				if (++changeSet.eventCount <= threshold)
+					return false;
+				changeSet.isBulk = true;
+				if (log.isLoggable(Level.INFO))
+					log.info(trxName + ": more than " + threshold + " search index events, switched to bulk mode");
+			}
+			changeSet.bulkRecords.computeIfAbsent(route, k -> new LinkedHashSet<>())
+				.add(new SearchIndexChange(po.getAD_Client_ID(), po.get_Table_ID(), po.get_ID(), SearchIndexChange.OP_UPDATE));
+			changeSet.addedCount++;
+		}
+		return true;
+	}
+
+	/**
+	 * Resolve the records collected in bulk mode with set-based queries of the committed data
+	 * @param records - collected records by route
+	 * @param toApply - changes of the main records (out)
+	 * @param toFanOut - changes of the records referencing FK records (out)
+	 */
+	private void resolveBulk(Map<SearchIndexRoute, Set<SearchIndexChange>> records, Collection<SearchIndexChange> toApply, Collection<SearchIndexChange> toFanOut) {
+		for (Map.Entry<SearchIndexRoute, Set<SearchIndexChange>> entry : records.entrySet()) {
+			SearchIndexRoute route = entry.getKey();
+			try {
+				toApply.addAll(SearchIndexChangeProcessor.getMainChanges(route, entry.getValue()));
+				if (!route.isFK())
+					continue;
+				Map<Integer, List<Integer>> recordIdsByClient = new LinkedHashMap<>();
+				for (SearchIndexChange record : entry.getValue()) {
+					recordIdsByClient.computeIfAbsent(record.getClientId(), k -> new ArrayList<>()).add(record.getRecordId());
+				}
+				for (Map.Entry<Integer, List<Integer>> clientEntry : recordIdsByClient.entrySet()) {
+					toFanOut.addAll(SearchIndexChangeProcessor.getFanOutChanges(route, clientEntry.getKey(), clientEntry.getValue(), ctx, null));
+				}
+			} catch (Exception e) {
+				log.log(Level.SEVERE, "Failed to resolve " + entry.getValue().size() + " records of " + route, e);
+			}
+		}
+	}
+
+	/**
+	 * Get the change set of a transaction, registered as listener of the transaction
+	 * @param ctx
+	 * @param coalescer
+	 * @param trx
+	 * @return change set
+	 */
+	private static SearchIndexChangeSet get(Properties ctx, SearchIndexCoalescer coalescer, Trx trx) {
+		return s_changeSets.computeIfAbsent(trx.getTrxName(), key -> {
+			SearchIndexChangeSet newChangeSet = new SearchIndexChangeSet(ctx, coalescer);
+			trx.addTrxEventListener(newChangeSet);
+			return newChangeSet;
+		});
+	}
+
+	/**
+	 * Add changes, the latest operation of a record wins
+	 * @param newChanges
+	 */
+	private synchronized void add(Collection<SearchIndexChange> newChanges) {
+		for (SearchIndexChange change : newChanges) {
+			// the operation is taken from the latest change
+			if (!changes.add(change)) {
+				changes.remove(change);
+				changes.add(change);
+			}
+			addedCount++;
+		}
+	}
+
+	/**
+	 * Apply the changes, the change set stays registered for further work in the transaction
+	 */
+	@Override
+	public void afterCommit(Trx trx, boolean success) {
+		Collection<SearchIndexChange> toApply;
+		Collection<SearchIndexChange> toFanOut;
+		Map<SearchIndexRoute, Set<SearchIndexChange>> bulk;
+		int events;
+		synchronized (this) {
+			toApply = new LinkedHashSet<>(changes);
+			toFanOut = new LinkedHashSet<>(fanOutChanges);
+			bulk = new LinkedHashMap<>(bulkRecords);
+			events = addedCount;
+			changes.clear();
+			fanOutChanges.clear();
+			bulkRecords.clear();
+			addedCount = 0;
+			eventCount = 0;
+			isBulk = false;
+		}
+		if (!success)
+			return;
+		if (!bulk.isEmpty())
+			resolveBulk(bulk, toApply, toFanOut);
+		toFanOut.removeAll(toApply);
+		if (log.isLoggable(Level.FINE) && (!toApply.isEmpty() || !toFanOut.isEmpty()))
+			log.fine(trx.getTrxName() + ": " + toApply.size() + " search index changes of " + events + " events, " + toFanOut.size() + " FK fan-out changes");
+		coalescer.submit(ctx, toApply);
+		coalescer.submitBackground(ctx, toFanOut);
+	}
+
+	@Override
+	public void afterRollback(Trx trx, boolean success) {
+		synchronized (this) {
+			changes.clear();
+			fanOutChanges.clear();
+			bulkRecords.clear();
+			addedCount = 0;
+			eventCount = 0;
+			isBulk = false;
+		}
+	}
+
+	@Override
+	public void afterClose(Trx trx) {
+		s_changeSets.remove(trx.getTrxName());
+		synchronized (this) {
+			changes.clear();
+			fanOutChanges.clear();
+			bulkRecords.clear();
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.adempiere.util.ServerContext;
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.Env;
+
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+
+/**
+ *
+ * Coalescing stage in front of the search index providers.<br>
+ * Changes of index records are held for a window (SysConfig SEARCH_INDEX_COALESCE_WINDOW
+ * in milliseconds), only the latest operation per (AD_SearchIndex_ID, AD_Table_ID, Record_ID)
+ * is kept and the pending changes are applied as one batch when the window ends.
+ * Document processing firing many events on the same records within milliseconds
+ * is indexed once. Without a window the changes are applied immediately.<br>
+ * Each flush logs at INFO the number of applied and collapsed changes.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexCoalescer {
+
+	/**	Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexCoalescer.class);
+
+	/** Coalescing window in milliseconds, 0 applies the changes immediately */
+	public static final String SYSCONFIG_COALESCE_WINDOW = "SEARCH_INDEX_COALESCE_WINDOW";
+
+	/** Applies the changes */
+	private final SearchIndexWorkQueue workQueue;
+	/** Pending changes, the value is the latest change of the record */
+	private final Map<SearchIndexChange, SearchIndexChange> pending = new LinkedHashMap<>();
+	/** Context of the first submitter of the pending changes, key is AD_Client_ID */
+	private final Map<Integer, Properties> pendingCtx = new LinkedHashMap<>();
+	/** Pending changes replaced by a later change of the same record */
+	private int pendingCollapsed = 0;
+	/** Flush of the current window, null if nothing is pending */
+	private ScheduledFuture<?> flushTask = null;
+	/** Flush thread, created on first use */
+	private ScheduledExecutorService executor = null;
+
+	/** Submitted changes */
+	private final AtomicLong submittedCount = new AtomicLong();
+	/** Changes replaced by a later change of the same record */
+	private final AtomicLong collapsedCount = new AtomicLong();
+
+	/**
+	 * @param workQueue - applies the changes
+	 */
+	public SearchIndexCoalescer(SearchIndexWorkQueue workQueue) {
+		this.workQueue = workQueue;
+	}
+
+	/**
+	 * Submit committed changes of index records
+	 * @param ctx - context of the client of the changes
+	 * @param changes - resolved changes
+	 */
+	public void submit(Properties ctx, Collection<SearchIndexChange> changes) {
+		if (changes.isEmpty())
+			return;
+		int window = MSysConfig.getIntValue(SYSCONFIG_COALESCE_WINDOW, 0, Env.getAD_Client_ID(ctx));
+		if (window <= 0) {
+			submittedCount.addAndGet(changes.size());
+			workQueue.execute(ctx, changes, false);
+			return;
+		}
+
+		synchronized (this) {
+			for (SearchIndexChange change : changes) {
+				submittedCount.incrementAndGet();
+				// the key keeps its position, the value is the latest operation
+				if (pending.put(change, change) != null) {
+					collapsedCount.incrementAndGet();
+					pendingCollapsed++;
+				}
+				// the flush applies the changes with the context of the submitter, not of the flush thread
+				pendingCtx.computeIfAbsent(change.getClientId(), clientId -> {
+					Properties clientCtx = new Properties();
+					clientCtx.putAll(ctx);
+					Env.setContext(clientCtx, Env.AD_CLIENT_ID, clientId);
+					return clientCtx;
+				});
+			}
+			if (flushTask == null)
+				flushTask = getExecutor().schedule(this::flush, window, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Submit committed changes of many index records, e.g. the fan-out of a changed FK record.
+	 * The changes are applied in the background and do not delay the committing thread.
+	 * @param ctx - context of the client of the changes
+	 * @param changes - resolved changes
+	 */
+	public void submitBackground(Properties ctx, Collection<SearchIndexChange> changes) {
+		if (changes.isEmpty())
+			return;
+		submittedCount.addAndGet(changes.size());
+		workQueue.execute(ctx, changes, true);
+	}
+
+	/**
+	 * Apply the pending changes
+	 */
+	public void flush() {
+		List<SearchIndexChange> changes;
+		Map<Integer, Properties> ctxByClient;
+		int collapsed;
+		synchronized (this) {
+			changes = new ArrayList<>(pending.values());
+			pending.clear();
+			ctxByClient = new LinkedHashMap<>(pendingCtx);
+			pendingCtx.clear();
+			collapsed = pendingCollapsed;
+			pendingCollapsed = 0;
+			if (flushTask != null) {
+				flushTask.cancel(false);
+				flushTask = null;
+			}
+		}
+		if (changes.isEmpty())
+			return;
+
+		Map<Integer, List<SearchIndexChange>> changesByClient = new LinkedHashMap<>();
+		for (SearchIndexChange change : changes) {
+			changesByClient.computeIfAbsent(change.getClientId(), k -> new ArrayList<>()).add(change);
+		}
+		for (Map.Entry<Integer, List<SearchIndexChange>> entry : changesByClient.entrySet()) {
+			Properties ctx = ctxByClient.get(entry.getKey());
+			ServerContext.setCurrentInstance(ctx);
+			try {
+				workQueue.execute(ctx, entry.getValue(), false);
+			} finally {
+				ServerContext.dispose();
+			}
+		}
+		if (log.isLoggable(Level.INFO))
+			log.info("Applied " + changes.size() + " search index changes, " + collapsed + " collapsed in the window, "
+					+ collapsedCount.get() + " of " + submittedCount.get() + " collapsed in total");
+	}
+
+	/**
+	 * Apply the pending changes and stop the flush thread
+	 */
+	public synchronized void stop() {
+		flush();
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Get the number of submitted changes
+	 * @return submitted changes
+	 */
+	public long getSubmittedCount() {
+		return submittedCount.get();
+	}
+
+	/**
+	 * Get the number of changes replaced by a later change of the same record within the window
+	 * @return collapsed changes
+	 */
+	public long getCollapsedCount() {
+		return collapsedCount.get();
+	}
+
+	/**
+	 * Get the flush thread
+	 * @return executor
+	 */
+	private synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "SearchIndexCoalescer");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return executor;
+	}
+}
@@ -22,23 +22,22 @@
 package com.cloudempiere.searchindex.event;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.adempiere.base.event.AbstractEventHandler;
 import org.adempiere.base.event.IEventManager;
 import org.adempiere.base.event.IEventTopics;
-import org.adempiere.model.GenericPO;
 import org.compiere.model.MSysConfig;
-import org.compiere.model.MTable;
 import org.compiere.model.PO;
-import org.compiere.model.Query;
 import org.compiere.util.CLogger;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 import org.compiere.util.Trx;
-import org.compiere.util.Util;
+import org.compiere.util.TrxEventListener;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -46,11 +45,15 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.event.Event;
 
 import com.cloudempiere.searchindex.event.pojo.IndexedTable;
-import com.cloudempiere.searchindex.indexprovider.ISearchIndexProvider;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexRoute;
+import com.cloudempiere.searchindex.indexprovider.SearchIndexProviderRegistry;
 import com.cloudempiere.searchindex.model.MSearchIndex;
 import com.cloudempiere.searchindex.model.MSearchIndexColumn;
+import com.cloudempiere.searchindex.model.MSearchIndexProvider;
 import com.cloudempiere.searchindex.model.MSearchIndexTable;
 import com.cloudempiere.searchindex.util.SearchIndexConfigBuilder;
+import com.cloudempiere.searchindex.util.SearchIndexKeyFilter;
 import com.cloudempiere.searchindex.util.SearchIndexUtils;
 
 @Component( reference = @Reference( name = "IEventManager", bind = "bindEventManager", unbind="unbindEventManager",
@@ -60,12 +63,25 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 	/**	Logger */
 	private static CLogger log = CLogger.getCLogger(SearchIndexEventHandler.class);
 
-	/** Indexed tables set (key: AD_SearchIndex_ID, name: TableName) */
-	private volatile Map<Integer, Set<IndexedTable>> indexedTablesByClient = null; // key is AD_Client_ID
+	/** Current configuration, replaced as a whole on reload (copy-on-write), null until loaded */
+	private volatile ConfigSnapshot snapshot = null;
+	/** Tables with registered events, guarded by this */
+	private final Set<String> registeredTables = new HashSet<>();
+	/** Transactions with a pending configuration reload, key is trxName */
+	private final Set<String> pendingReloads = ConcurrentHashMap.newKeySet();
 
 	/** Flag to track if dynamic tables have been registered (lazy initialization) */
 	private volatile boolean tablesRegistered = false;
 
+	/** Resolves and applies changes handled outside of the event */
+	private final SearchIndexChangeProcessor changeProcessor = new SearchIndexChangeProcessor(this::getIndexedTables);
+	/** Outbox of the events, see {@link SearchIndexQueue#SYSCONFIG_EVENT_QUEUE} */
+	private final SearchIndexQueue queue = new SearchIndexQueue(changeProcessor);
+	/** Bounded queue applying the committed changes, degrades to the outbox when full */
+	private final SearchIndexWorkQueue workQueue = new SearchIndexWorkQueue(changeProcessor, queue);
+	/** Coalesces committed changes before they are applied */
+	private final SearchIndexCoalescer coalescer = new SearchIndexCoalescer(workQueue);
+
 	@Override
 	protected void initialize() {
 		// Register static config tables immediately (these don't require DB query)
@@ -74,6 +90,8 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 		registerTableEvent(IEventTopics.PO_AFTER_DELETE, MSearchIndexColumn.Table_Name);
 		registerTableEvent(IEventTopics.PO_AFTER_CHANGE, MSearchIndexTable.Table_Name);
 		registerTableEvent(IEventTopics.PO_AFTER_CHANGE, MSearchIndex.Table_Name);
+		registerTableEvent(IEventTopics.PO_AFTER_CHANGE, MSearchIndexProvider.Table_Name);
+		registerTableEvent(IEventTopics.PO_AFTER_DELETE, MSearchIndexProvider.Table_Name);
 
 		// Try immediate registration if DB is already connected
 		if (DB.isConnected()) {
@@ -123,13 +141,30 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 	 * Must be called within synchronized block or from initialize() when DB is connected.
 	 */
 	private void registerDynamicTables() {
+		if (!reloadConfig())
+			return;
+		tablesRegistered = true;
+		queue.start();
+		workQueue.start();
+	}
+
+	/**
+	 * Load the configuration into a new snapshot and swap it in atomically.
+	 * Events keep using the previous snapshot until the swap, only tables not registered yet
+	 * get their events registered.
+	 * @return true if loaded
+	 */
+	private synchronized boolean reloadConfig() {
 		try {
-			indexedTablesByClient = SearchIndexUtils.getSearchIndexConfigs(null, -1); // gets data from all clients
+			Map<Integer, Set<IndexedTable>> configs = SearchIndexUtils.getSearchIndexConfigs(null, -1); // gets data from all clients
+			SearchIndexRoutingTable routing = SearchIndexRoutingTable.build(Env.getCtx(), configs);
 			Set<String> tablesToRegister = new HashSet<>();
+			Set<String> indexTableNames = new HashSet<>();
 
-			for (Map.Entry<Integer, Set<IndexedTable>> entry : indexedTablesByClient.entrySet()) {
+			for (Map.Entry<Integer, Set<IndexedTable>> entry : configs.entrySet()) {
 				Set<IndexedTable> indexedTables = entry.getValue();
 				for (IndexedTable indexTable : indexedTables) {
+					indexTableNames.add(indexTable.getSearchIndexName());
 					String tableName = indexTable.getTableName();
 					tablesToRegister.add(tableName);
 					//Index the FK tables
@@ -138,17 +173,25 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 					}
 				}
 			}
+			// removed tables stay registered, their events find no route
+			tablesToRegister.removeAll(registeredTables);
 
 			for (String tableName : tablesToRegister) {
 				registerTableEvent(IEventTopics.PO_AFTER_NEW, tableName);
 				registerTableEvent(IEventTopics.PO_AFTER_CHANGE, tableName);
 				registerTableEvent(IEventTopics.PO_AFTER_DELETE, tableName);
+				registeredTables.add(tableName);
 			}
 
-			tablesRegistered = true;
-			log.info("SearchIndex event handler: registered " + tablesToRegister.size() + " tables for indexing");
+			snapshot = new ConfigSnapshot(configs, routing);
+			// Bloom filters of the index tables skip most containsRecord queries
+			SearchIndexKeyFilter.start(indexTableNames);
+			log.info("SearchIndex event handler: registered " + tablesToRegister.size() + " new tables for indexing ("
+					+ registeredTables.size() + " in total), " + routing.size() + " routes");
+			return true;
 		} catch (Exception e) {
 			log.log(java.util.logging.Level.SEVERE, "Failed to register search index tables", e);
+			return false;
 		}
 	}
 
@@ -158,26 +201,18 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 		PO eventPO = getPO(event);
 		// Fix ADR-001: Use local variables instead of instance variables
 		Properties ctx = Env.getCtx();
-		// Create defensive copy to avoid modifying shared data structure
-		Set<IndexedTable> indexedTables = new HashSet<>();
+		if (eventPO instanceof MSearchIndexProvider) {
+			// shared provider instances and their cached settings are recreated on next use
+			SearchIndexProviderRegistry.reset();
+			return;
+		}
 
-		// Handle null safely - indexedTablesByClient may be null if DB isn't ready yet
-		Map<Integer, Set<IndexedTable>> tablesByClient = indexedTablesByClient;
-		if (tablesByClient == null) {
+		// Handle null safely - snapshot may be null if DB isn't ready yet
+		ConfigSnapshot config = snapshot;
+		if (config == null) {
 			// Tables not registered yet - skip event processing
 			return;
 		}
-
-		Set<IndexedTable> clientTables = tablesByClient.get(Env.getAD_Client_ID(ctx));
-		Set<IndexedTable> systemTables = tablesByClient.get(0);
-
-		if (clientTables != null)
-			indexedTables.addAll(clientTables);
-		if (systemTables != null)
-			indexedTables.addAll(systemTables);
-
-		if (indexedTables.isEmpty())
-			indexedTables = null;
 		
 		if (eventPO instanceof MSearchIndex
 				|| eventPO instanceof MSearchIndexTable
@@ -189,259 +224,111 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 		
 		if (!MSysConfig.getBooleanValue(MSysConfig.ALLOW_SEARCH_INDEX_EVENT, false, Env.getAD_Client_ID(ctx)))
 			return;
-		if (indexedTables == null)
+		SearchIndexRoute route = config.routing.get(Env.getAD_Client_ID(ctx), eventPO.get_Table_ID());
+		if (route == null)
 			return;
+		Set<IndexedTable> indexedTables = route.getConfigs();
 		
 		// Check if changed column is indexed or if IsActive changed
 		if (type.equals(IEventTopics.PO_AFTER_CHANGE)) {
-			MTable mTableEvt = MTable.get(ctx, eventPO.get_Table_ID());
-			boolean updateIndex = false;
-			boolean isActiveChanged = false;
-			Set<Integer> changedColumnIDs = new HashSet<>();
-			
-			// Check if IsActive changed
-			if (eventPO.is_ValueChanged("IsActive")) {
-				isActiveChanged = true;
-				updateIndex = true;
-			}
-			
-			// Continue with normal column change check if IsActive didn't change
-			if (!isActiveChanged) {
-				for (int columnId : mTableEvt.getColumnIDs(false)) {
-					if (eventPO.is_ValueChanged_byId(columnId))
-						changedColumnIDs.add(columnId);
-				}
-				for (IndexedTable searchIndexConfig : indexedTables) {
-					for (int changedColId : changedColumnIDs) {
-						if (searchIndexConfig.getColumnIDs().contains(Integer.valueOf(changedColId))) {
-							updateIndex = true;
-							break;
-						}
-					}
-					if (updateIndex)
-						break;
-				}
-			}
-			if (!updateIndex)
+			if (!eventPO.is_ValueChanged("IsActive") && !route.isIndexedColumnChanged(eventPO))
 				return;
 		}
+
+		// asynchronous and deferred tables are queued, synchronous without the queue table
+		String indexingPolicy = route.getIndexingPolicy();
+		boolean isDeferred = MSearchIndexTable.INDEXINGPOLICY_Deferred.equals(indexingPolicy);
+		if (queue.isAvailable() && (isDeferred
+				|| MSearchIndexTable.INDEXINGPOLICY_Asynchronous.equals(indexingPolicy)
+				|| queue.isEnabled(eventPO.getAD_Client_ID()))) {
+			enqueue(type, eventPO, indexedTables, isDeferred);
+			return;
+		}
 		
 		// Fix ADR-001: Use business transaction for reading data to see uncommitted changes
 		// This is critical for FK table indexing where parent records may not be committed yet
 		String businessTrxName = eventPO.get_TrxName();
-		PO[] mainPOArr = getMainPOs(eventPO, indexedTables, ctx, businessTrxName);
-		MSearchIndex[] searchIndexArr;
-
-		for (PO po : mainPOArr) {
-			// Find existing search indexes for the record (read-only query, no transaction needed)
-			if (type.equals(IEventTopics.PO_AFTER_NEW)
-					|| (type.equals(IEventTopics.PO_AFTER_CHANGE) && eventPO.is_ValueChanged("IsActive"))) {
-				searchIndexArr = MSearchIndex.getForTable(ctx, po, eventPO, indexedTables, null);
-			} else {
-				searchIndexArr = MSearchIndex.getForRecord(ctx, po, eventPO, indexedTables, null);
-			}
-
-			if (searchIndexArr == null)
-				continue;
-
-			for (MSearchIndex searchIndex : searchIndexArr) {
-				int tableId = po.get_Table_ID();
-				int recordId = po.get_ID() > 0 ? po.get_ID() : po.get_IDOld();
-
-				// Handle IsActive changes specially
-				if (type.equals(IEventTopics.PO_AFTER_CHANGE) && po.is_ValueChanged("IsActive")) {
-					boolean isActive = po.get_ValueAsBoolean("IsActive");
-					// Fix ADR-001: Use separate transaction for index operations
-					// Use business transaction for reading (sees uncommitted changes)
-					executeIndexUpdateWithSeparateTransaction((indexTrxName) -> {
-						ISearchIndexProvider provider = SearchIndexUtils.getSearchIndexProvider(ctx, searchIndex.getAD_SearchIndexProvider_ID(), null, indexTrxName);
-						if (provider != null) {
-							SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
-									.setCtx(ctx)
-									.setTrxName(businessTrxName)  // Use business transaction to READ data (sees uncommitted changes)
-									.setAD_SearchIndex_ID(searchIndex.getAD_SearchIndex_ID())
-									.setRecord(tableId, recordId);
-
-							if (isActive) {
-								// Record activated - create index
-								provider.createIndex(ctx, builder.build().getData(false), indexTrxName);  // Use separate transaction to WRITE index
-							} else {
-								// Record deactivated - delete index
-								StringBuilder whereClause = new StringBuilder();
-								whereClause.append(" AD_Client_ID=? AND AD_Table_ID=? AND Record_ID=?");
-								Object[] params = new Object[] { po.getAD_Client_ID(), tableId, recordId };
-								provider.deleteIndex(ctx, searchIndex.getSearchIndexName(), whereClause.toString(), params, indexTrxName);
-							}
-						}
-					});
-					continue;
-				}
-
-				// Handle changes
-				if (type.equals(IEventTopics.PO_AFTER_DELETE) && po.equals(eventPO)) {
-					// Fix ADR-001: Use separate transaction for index operations
-					executeIndexUpdateWithSeparateTransaction((indexTrxName) -> {
-						ISearchIndexProvider provider = SearchIndexUtils.getSearchIndexProvider(ctx, searchIndex.getAD_SearchIndexProvider_ID(), null, indexTrxName);
-						if (provider != null) {
-							StringBuilder whereClause = new StringBuilder();
-							whereClause.append(" AD_Client_ID=? AND AD_Table_ID=? AND Record_ID=?");
-							Object[] params = new Object[] { po.getAD_Client_ID(), tableId, recordId };
-							provider.deleteIndex(ctx, searchIndex.getSearchIndexName(), whereClause.toString(), params, indexTrxName);
-						}
-					});
-				} else if (type.equals(IEventTopics.PO_AFTER_CHANGE)
-						|| type.equals(IEventTopics.PO_AFTER_DELETE) && !po.equals(eventPO)
-						|| type.equals(IEventTopics.PO_AFTER_NEW) && !po.equals(eventPO)) {
-					// Fix ADR-001: Use separate transaction for index operations
-					// Use business transaction for reading (sees uncommitted changes)
-					executeIndexUpdateWithSeparateTransaction((indexTrxName) -> {
-						ISearchIndexProvider provider = SearchIndexUtils.getSearchIndexProvider(ctx, searchIndex.getAD_SearchIndexProvider_ID(), null, indexTrxName);
-						if (provider != null) {
-							SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
-									.setCtx(ctx)
-									.setTrxName(businessTrxName)  // Use business transaction to READ data (sees uncommitted changes)
-									.setAD_SearchIndex_ID(searchIndex.getAD_SearchIndex_ID())
-									.setRecord(tableId, recordId);
-							provider.updateIndex(ctx, builder.build().getData(false), indexTrxName);  // Use separate transaction to WRITE index
-						}
-					});
-				} else if (type.equals(IEventTopics.PO_AFTER_NEW) && po.equals(eventPO)) {
-					// Fix ADR-001: Use separate transaction for index operations
-					// Use business transaction for reading (sees uncommitted changes)
-					executeIndexUpdateWithSeparateTransaction((indexTrxName) -> {
-						ISearchIndexProvider provider = SearchIndexUtils.getSearchIndexProvider(ctx, searchIndex.getAD_SearchIndexProvider_ID(), null, indexTrxName);
-						if (provider != null) {
-							SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
-									.setCtx(ctx)
-									.setTrxName(businessTrxName)  // Use business transaction to READ data (sees uncommitted changes)
-									.setAD_SearchIndex_ID(searchIndex.getAD_SearchIndex_ID())
-									.setRecord(tableId, recordId);
-							provider.createIndex(ctx, builder.build().getData(false), indexTrxName);  // Use separate transaction to WRITE index
-						}
-					});
-				} else {
-					log.warning("Unsupportet event type");
-				}
-			}
+		// with a bounded work queue the save only collects the record, its workers resolve it after commit
+		if (workQueue.isBounded()) {
+			SearchIndexChangeSet.add(ctx, coalescer, getChangedRecords(type, eventPO, indexedTables), businessTrxName);
+			return;
 		}
+		// mass changes of one transaction only collect the keys, resolved set-based at commit
+		if (!type.equals(IEventTopics.PO_AFTER_DELETE) && SearchIndexChangeSet.addBulk(ctx, coalescer, route, eventPO, businessTrxName))
+			return;
+		boolean isRecordLevel = !(type.equals(IEventTopics.PO_AFTER_NEW)
+				|| (type.equals(IEventTopics.PO_AFTER_CHANGE) && eventPO.is_ValueChanged("IsActive")));
+		// an update of a deactivated or filtered record removes it from the index
+		String op = type.equals(IEventTopics.PO_AFTER_DELETE) ? SearchIndexChange.OP_DELETE : SearchIndexChange.OP_UPDATE;
+		Set<SearchIndexChange> changes = SearchIndexChangeProcessor.getMainChanges(eventPO, route, isRecordLevel, op, ctx, businessTrxName);
+
+		// Fix ADR-001: index only committed data, in a separate transaction after the business transaction commits
+		SearchIndexChangeSet.add(ctx, coalescer, changes, businessTrxName);
+		// records referencing a changed FK record are rebuilt set-based in the background
+		if (route.isFK())
+			SearchIndexChangeSet.addFanOut(ctx, coalescer, SearchIndexChangeProcessor.getFanOutChanges(eventPO, route, ctx, businessTrxName), businessTrxName);
 	}
 
 	/**
-	 * Execute index update with separate transaction (ADR-001: Transaction Isolation)
-	 *
-	 * This method wraps index operations in a dedicated transaction to prevent:
-	 * - Index failures from rolling back business transactions
-	 * - Long-running index updates from holding business transaction locks
-	 * - Tight coupling between business logic and index maintenance
-	 *
-	 * @param operation Lambda/Consumer that performs the index operation
+	 * Get the indexed tables of a client including System
+	 * @param clientId - AD_Client_ID
+	 * @return defensive copy of the indexed tables, null if none
 	 */
-	private void executeIndexUpdateWithSeparateTransaction(java.util.function.Consumer<String> operation) {
-		// Create separate transaction for index operations
-		Trx indexTrx = Trx.get(Trx.createTrxName("SearchIdx"), true);
-		try {
-			String indexTrxName = indexTrx.getTrxName();
+	private Set<IndexedTable> getIndexedTables(int clientId) {
+		ConfigSnapshot config = snapshot;
+		if (config == null)
+			return null;
+		Map<Integer, Set<IndexedTable>> tablesByClient = config.indexedTablesByClient;
 
-			// Perform index operation with separate transaction
-			operation.accept(indexTrxName);
-
-			// Commit the index transaction
-			indexTrx.commit();
-		} catch (Exception e) {
-			// Rollback on error
-			indexTrx.rollback();
-			// Log the error but don't throw - index failure shouldn't fail business transaction
-			log.severe("Failed to update search index: " + e.getMessage());
-			if (log.isLoggable(java.util.logging.Level.FINE))
-				log.log(java.util.logging.Level.FINE, "Search index update failed", e);
-		} finally {
-			// Always close the transaction
-			indexTrx.close();
-		}
+		// Create defensive copy to avoid modifying shared data structure
+		Set<IndexedTable> indexedTables = new HashSet<>();
+		Set<IndexedTable> clientTables = tablesByClient.get(clientId);
+		Set<IndexedTable> systemTables = tablesByClient.get(0);
+		if (clientTables != null)
+			indexedTables.addAll(clientTables);
+		if (systemTables != null)
+			indexedTables.addAll(systemTables);
+		return indexedTables.isEmpty() ? null : indexedTables;
 	}
 
-	private PO[] getMainPOs(PO po, Set<IndexedTable> tableConfigs, Properties ctx, String trxName) {
-		Set<PO> mainPOSet = new HashSet<>();
-		for (IndexedTable tableConfig : tableConfigs) {
-			// record of an index table
-			if (po.get_TableName().equals(tableConfig.getTableName())) {
-				if (applyWhereClause(po, tableConfig.getWhereClause(), ctx, trxName))
-					mainPOSet.add(po);
-			} else { // related to an index table - find the main record
-				for (String fkTableName : tableConfig.getFKTableNames()) {
-					if (po.get_TableName().equals(fkTableName)) {
-						PO[] mainPOsOfTable = getMainPOsOfTable(po, tableConfig.getTableName(), tableConfig.getWhereClause(), ctx, trxName);
-						for (PO mainPO : mainPOsOfTable) {
-							mainPOSet.add(mainPO);
-						}
-					}
-				}
-			}
+	/**
+	 * Queue the changed record in the business transaction, it is indexed by the
+	 * {@link SearchIndexQueue} workers after the transaction commits
+	 * @param type - event topic
+	 * @param eventPO - changed record
+	 * @param indexedTables
+	 * @param isDeferred - indexed by the deferred process instead of the workers
+	 */
+	private void enqueue(String type, PO eventPO, Set<IndexedTable> indexedTables, boolean isDeferred) {
+		for (SearchIndexChange change : getChangedRecords(type, eventPO, indexedTables)) {
+			queue.enqueue(change, eventPO.get_TrxName(), isDeferred);
 		}
-		return mainPOSet.toArray(new PO[0]);
 	}
 
-	private PO[] getMainPOsOfTable(PO po, String mainTableName, String whereClause, Properties ctx, String trxName) {
-		
-		if (!Util.isEmpty(whereClause))
-			whereClause = " AND " + whereClause;
-		else if (whereClause == null)
-			whereClause = "";
-		
-		Set<PO> mainPOSet = new HashSet<>();
-		
-		// one to many
-		MTable fkTable = MTable.get(ctx, mainTableName, trxName);
-		for (String keyCol : po.get_KeyColumns()) {
-			if (fkTable.columnExistsInDictionary(keyCol)) {
-				// FIXME has problem with aliases in whereClause: ERROR: missing FROM-clause entry for table "main
-				int poId = po.get_ID() > 0 ? po.get_ID() : po.get_IDOld();
-				for (int recordId : PO.getAllIDs(mainTableName, keyCol+"="+poId+whereClause, trxName)) {
-					mainPOSet.add(new GenericPO(mainTableName, ctx, recordId, trxName));
-				}
-			}
-		}
-		// one to one
-		if (mainPOSet.isEmpty()) {
-			for (String keyCol : fkTable.getKeyColumns()) {
-				if (po.columnExists(keyCol)) {
-					//  TODO apply where clause here too
-					int recordId = po.get_ValueAsInt(keyCol);
-					if (recordId > 0)
-						mainPOSet.add(new GenericPO(mainTableName, ctx, recordId, trxName));
-				}
-			}
-		}
-		return mainPOSet.toArray(new PO[0]);
-	}
-	
 	/**
-	 * Check if PO passes the where clause filter
-	 * @param po
-	 * @param whereClause
-	 * @param ctx
-	 * @param trxName
-	 * @return true if po passed the filter
+	 * Get the changed records of an event, resolved to the index records after the transaction commits.
+	 * The main records of a deleted FK record are taken from its values, it can not be read after commit.
+	 * @param type - event topic
+	 * @param eventPO - changed record
+	 * @param indexedTables
+	 * @return changed records without AD_SearchIndex_ID
 	 */
-	private boolean applyWhereClause(PO po, String whereClause, Properties ctx, String trxName) {
-
-		if (Util.isEmpty(whereClause))
-			return true;
-		else
-			whereClause = " AND " + whereClause;
-
-		MTable table = MTable.get(ctx, po.get_TableName(), trxName);
-		for (String keyCol : po.get_KeyColumns()) {
-			if (table.columnExistsInDictionary(keyCol)) {
-				// FIXME has problem with aliases in whereClause: ERROR: missing FROM-clause entry for table "main
-				int poId = po.get_ID() > 0 ? po.get_ID() : po.get_IDOld();
-				if (new Query(ctx, po.get_TableName(), keyCol+"="+poId+whereClause, trxName).match())
-					return true;
+	private Set<SearchIndexChange> getChangedRecords(String type, PO eventPO, Set<IndexedTable> indexedTables) {
+		int clientId = eventPO.getAD_Client_ID();
+		int recordId = eventPO.get_ID() > 0 ? eventPO.get_ID() : eventPO.get_IDOld();
+		Set<SearchIndexChange> changes = new LinkedHashSet<>();
+		if (type.equals(IEventTopics.PO_AFTER_DELETE)) {
+			changes.add(new SearchIndexChange(clientId, eventPO.get_Table_ID(), recordId, SearchIndexChange.OP_DELETE));
+			// FK record can not be read after commit, queue its main records
+			for (SearchIndexChange mainChange : SearchIndexChangeProcessor.getMainChangesOfDeleted(eventPO, indexedTables)) {
+				changes.add(new SearchIndexChange(clientId, mainChange.getTableId(), mainChange.getRecordId(), SearchIndexChange.OP_UPDATE));
 			}
+		} else {
+			changes.add(new SearchIndexChange(clientId, eventPO.get_Table_ID(), recordId, SearchIndexChange.OP_UPDATE));
 		}
-		return false;
+		return changes;
 	}
-	
+
 	private void handleSearchIndexConfigChange(PO po, Properties ctx) {
 
 		int searchIndexId;
@@ -467,22 +354,55 @@ public class SearchIndexEventHandler extends AbstractEventHandler {
 		// Clear configuration cache to prevent stale data
 		SearchIndexConfigBuilder.clearCache(searchIndexId);
 
-		// Reset state to trigger re-initialization
-		// Note: Any running background thread will exit naturally once tablesRegistered becomes true
-		synchronized (this) {
-			tablesRegistered = false;
-			indexedTablesByClient = null;
-		}
+		// Reload when the configuration change is committed, events use the current configuration until then
+		String trxName = po.get_TrxName();
+		Trx trx = trxName != null ? Trx.get(trxName, false) : null;
+		if (trx == null) {
+			reloadConfig();
+		} else if (pendingReloads.add(trxName)) {
+			trx.addTrxEventListener(new TrxEventListener() {
+				@Override
+				public void afterCommit(Trx trx, boolean success) {
+					if (pendingReloads.remove(trx.getTrxName()) && success)
+						reloadConfig();
+				}
 
-		// Re-initialize with new configuration
-		initialize();
+				@Override
+				public void afterRollback(Trx trx, boolean success) {
+					pendingReloads.remove(trx.getTrxName());
+				}
+
+				@Override
+				public void afterClose(Trx trx) {
+					pendingReloads.remove(trx.getTrxName());
+				}
+			});
+		}
 	}
 
 	@Override
 	public void unbindEventManager(IEventManager manager) {
 		// No explicit cleanup needed - background thread is daemon and will exit naturally
 		// when JVM shuts down or when tablesRegistered becomes true
+		coalescer.stop();
+		workQueue.stop();
+		queue.stop();
+		SearchIndexKeyFilter.stop();
 		super.unbindEventManager(manager);
 	}
 
+	/**
+	 * Immutable configuration of the event handler, replaced as a whole on reload
+	 */
+	private static final class ConfigSnapshot {
+		/** Indexed tables, key is AD_Client_ID */
+		private final Map<Integer, Set<IndexedTable>> indexedTablesByClient;
+		/** Routing of the events by (AD_Client_ID, AD_Table_ID) */
+		private final SearchIndexRoutingTable routing;
+
+		private ConfigSnapshot(Map<Integer, Set<IndexedTable>> indexedTablesByClient, SearchIndexRoutingTable routing) {
+			this.indexedTablesByClient = indexedTablesByClient;
+			this.routing = routing;
+		}
+	}
 }
@@ -0,0 +1,534 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.event;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.adempiere.exceptions.DBException;
+import org.adempiere.util.ServerContext;
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Trx;
+
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+
+/**
+ *
+ * Transactional outbox of the search index events, stored in T_SearchIndex_Queue.<br>
+ * The event handler inserts the changed records in the business transaction,
+ * they become visible to the background workers when the transaction commits.
+ * The workers drain the queue in batches and index the committed data.<br>
+ * The table is shared by the workers of all cluster nodes, a batch is claimed with
+ * <code>FOR UPDATE SKIP LOCKED</code>, so the workers never wait for each other and
+ * adding a node adds indexing throughput. The claimed rows stay in the table until the
+ * batch commits, the batch of a crashed node is released with its connection and claimed again.<br>
+ * Changes which fail to index stay in the queue and are claimed again after a delay
+ * (SysConfig SEARCH_INDEX_QUEUE_RETRY_DELAY) until SEARCH_INDEX_QUEUE_MAX_RETRIES is reached,
+ * the exhausted changes are kept for inspection.<br>
+ * Changes of tables with the deferred indexing policy are kept in the queue (IsDeferred=Y)
+ * until the {@link com.cloudempiere.searchindex.process.UpdateDeferredSearchIndex} process indexes them.<br>
+ * Changes marked dirty by the saturated {@link SearchIndexWorkQueue} are queued already resolved
+ * (AD_SearchIndex_ID set) and applied without resolving the FK references again.<br>
+ * The queue table is created by the migration script 202610161600_SearchIndexQueue.sql,
+ * the IsDeferred column by 202610161700_SearchIndexIndexingPolicy.sql,
+ * the retry columns by 202610161800_SearchIndexQueueRetry.sql,
+ * the AD_SearchIndex_ID column by 202610161900_SearchIndexQueueResolved.sql.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexQueue {
+
+	/**	Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexQueue.class);
+
+	/** Queue table */
+	public static final String TABLE_NAME = "T_SearchIndex_Queue";
+	/** Queue the events instead of indexing in the event handler */
+	public static final String SYSCONFIG_EVENT_QUEUE = "SEARCH_INDEX_EVENT_QUEUE";
+	/** Number of queued changes processed in one transaction */
+	public static final String SYSCONFIG_QUEUE_BATCH_SIZE = "SEARCH_INDEX_QUEUE_BATCH_SIZE";
+	/** Delay between two polls of an idle worker in milliseconds */
+	public static final String SYSCONFIG_QUEUE_POLL_INTERVAL = "SEARCH_INDEX_QUEUE_POLL_INTERVAL";
+	/** Number of worker threads */
+	public static final String SYSCONFIG_QUEUE_WORKERS = "SEARCH_INDEX_QUEUE_WORKERS";
+	/** Number of retries of a change which failed to index */
+	public static final String SYSCONFIG_QUEUE_MAX_RETRIES = "SEARCH_INDEX_QUEUE_MAX_RETRIES";
+	/** Delay before a failed change is claimed again in seconds */
+	public static final String SYSCONFIG_QUEUE_RETRY_DELAY = "SEARCH_INDEX_QUEUE_RETRY_DELAY";
+
+	/** Resolves and applies the queued changes */
+	private final SearchIndexChangeProcessor processor;
+	/** Workers, null if not started */
+	private ScheduledExecutorService executor = null;
+	/** Queue table exists */
+	private volatile boolean isAvailable = false;
+	/** Retry columns exist, failed changes are kept in the queue */
+	private volatile boolean isRetry = false;
+	/** AD_SearchIndex_ID column exists, resolved changes can be queued */
+	private volatile boolean isResolved = false;
+	/** IsDeferred column exists, without it no change is deferred */
+	private volatile boolean isDeferredColumn = false;
+
+	/**
+	 * @param processor - resolves and applies the queued changes
+	 */
+	public SearchIndexQueue(SearchIndexChangeProcessor processor) {
+		this.processor = processor;
+	}
+
+	/**
+	 * Check if the events of a client are queued
+	 * @param clientId - AD_Client_ID
+	 * @return true if the queue is available and enabled for the client
+	 */
+	public boolean isEnabled(int clientId) {
+		return isAvailable && MSysConfig.getBooleanValue(SYSCONFIG_EVENT_QUEUE, false, clientId);
+	}
+
+	/**
+	 * Queue a changed record, the row is committed with the business transaction
+	 * @param change - changed record
+	 * @param trxName - business transaction
+	 */
+	public void enqueue(SearchIndexChange change, String trxName) {
+		enqueue(change, trxName, false);
+	}
+
+	/**
+	 * Queue a changed record, the row is committed with the business transaction
+	 * @param change - changed record
+	 * @param trxName - business transaction
+	 * @param isDeferred - indexed by the deferred process instead of the workers
+	 */
+	public void enqueue(SearchIndexChange change, String trxName, boolean isDeferred) {
+		if (isDeferredColumn) {
+			String sql = "INSERT INTO " + TABLE_NAME + " (AD_Client_ID, AD_Table_ID, Record_ID, EventType, IsDeferred) VALUES (?,?,?,?,?)";
+			DB.executeUpdateEx(sql, new Object[] {change.getClientId(), change.getTableId(), change.getRecordId(), change.getOp(), isDeferred ? "Y" : "N"}, trxName);
+		} else {
+			String sql = "INSERT INTO " + TABLE_NAME + " (AD_Client_ID, AD_Table_ID, Record_ID, EventType) VALUES (?,?,?,?)";
+			DB.executeUpdateEx(sql, new Object[] {change.getClientId(), change.getTableId(), change.getRecordId(), change.getOp()}, trxName);
+		}
+	}
+
+	/**
+	 * Queue committed changes in a separate transaction, e.g. marked dirty by a saturated {@link SearchIndexWorkQueue}.
+	 * Without the AD_SearchIndex_ID column the resolved changes are queued as changed records and resolved again.
+	 * @param changes - changed records or resolved changes of index records
+	 */
+	public void enqueue(Collection<SearchIndexChange> changes) {
+		enqueueResolved(changes, false);
+	}
+
+	/**
+	 * Queue changes which failed to index in a separate transaction,
+	 * they are claimed again after SEARCH_INDEX_QUEUE_RETRY_DELAY
+	 * @param changes - failed changes of index records
+	 */
+	public void retry(Collection<SearchIndexChange> changes) {
+		enqueueResolved(changes, true);
+	}
+
+	/**
+	 * Insert committed changes in one batch and commit them
+	 * @param changes - changed records or resolved changes of index records
+	 * @param isFailed - count the first retry and postpone the next run
+	 */
+	private void enqueueResolved(Collection<SearchIndexChange> changes, boolean isFailed) {
+		if (changes.isEmpty())
+			return;
+		boolean isPostponed = isFailed && isRetry;
+		boolean isSearchIndexId = isResolved;
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(TABLE_NAME)
+				.append(" (AD_Client_ID, AD_Table_ID, Record_ID, EventType");
+		if (isDeferredColumn)
+			sql.append(", IsDeferred");
+		if (isSearchIndexId)
+			sql.append(", AD_SearchIndex_ID");
+		if (isPostponed)
+			sql.append(", RetryCount, DateNextRun");
+		sql.append(") VALUES (?,?,?,?");
+		if (isDeferredColumn)
+			sql.append(",'N'");
+		if (isSearchIndexId)
+			sql.append(",?");
+		if (isPostponed)
+			sql.append(",1,?");
+		sql.append(")");
+		Timestamp nextRun = isPostponed ? new Timestamp(System.currentTimeMillis() + getRetryDelay() * 1000L) : null;
+		Trx trx = Trx.get(Trx.createTrxName("SearchIdxDirty"), true);
+		PreparedStatement pstmt = null;
+		try {
+			pstmt = DB.prepareStatement(sql.toString(), trx.getTrxName());
+			for (SearchIndexChange change : changes) {
+				int index = 1;
+				pstmt.setInt(index++, change.getClientId());
+				pstmt.setInt(index++, change.getTableId());
+				pstmt.setInt(index++, change.getRecordId());
+				pstmt.setString(index++, change.getOp());
+				if (isSearchIndexId)
+					pstmt.setInt(index++, change.getSearchIndexId());
+				if (isPostponed)
+					pstmt.setTimestamp(index++, nextRun);
+				pstmt.addBatch();
+			}
+			pstmt.executeBatch();
+			trx.commit(true);
+		} catch (SQLException e) {
+			trx.rollback();
+			throw new DBException(e, sql.toString());
+		} finally {
+			DB.close(pstmt);
+			trx.close();
+		}
+		if (isFailed)
+			log.warning(changes.size() + " search index changes failed to index, queued for retry");
+	}
+
+	/**
+	 * Check if the queue table exists and the workers are running
+	 * @return true if changes can be queued
+	 */
+	public boolean isAvailable() {
+		return isAvailable;
+	}
+
+	/**
+	 * Start the workers
+	 */
+	public synchronized void start() {
+		if (executor != null)
+			return;
+		try {
+			DB.getSQLValueEx(null, "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE 1=2");
+		} catch (DBException e) {
+			log.warning("Table " + TABLE_NAME + " not found, search index events are not queued. Run migration script: 202610161600_SearchIndexQueue.sql");
+			return;
+		}
+		isAvailable = true;
+		try {
+			DB.getSQLValueEx(null, "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE IsDeferred='N' AND 1=2");
+			isDeferredColumn = true;
+		} catch (DBException e) {
+			isDeferredColumn = false;
+			log.warning("Column IsDeferred of " + TABLE_NAME + " not found, no change is deferred. Run migration script: 202610161700_SearchIndexIndexingPolicy.sql");
+		}
+		try {
+			DB.getSQLValueEx(null, "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE RetryCount=0 AND DateNextRun IS NULL AND 1=2");
+			isRetry = true;
+		} catch (DBException e) {
+			isRetry = false;
+			log.warning("Retry columns of " + TABLE_NAME + " not found, changes which fail to index are not retried. Run migration script: 202610161800_SearchIndexQueueRetry.sql");
+		}
+		try {
+			DB.getSQLValueEx(null, "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE AD_SearchIndex_ID=0 AND 1=2");
+			isResolved = true;
+		} catch (DBException e) {
+			isResolved = false;
+			log.warning("Column AD_SearchIndex_ID of " + TABLE_NAME + " not found, changes of a saturated work queue are resolved again. Run migration script: 202610161900_SearchIndexQueueResolved.sql");
+		}
+
+		int workers = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_QUEUE_WORKERS, 1, 0));
+		long pollInterval = Math.max(10, MSysConfig.getIntValue(SYSCONFIG_QUEUE_POLL_INTERVAL, 1000, 0));
+		AtomicInteger threadNo = new AtomicInteger();
+		executor = Executors.newScheduledThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "SearchIndexQueue-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < workers; i++) {
+			executor.scheduleWithFixedDelay(this::drain, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+		}
+		if (log.isLoggable(Level.INFO))
+			log.info("SearchIndex queue: started " + workers + " workers");
+	}
+
+	/**
+	 * Stop the workers, queued changes are processed after the next start
+	 */
+	public synchronized void stop() {
+		if (executor == null)
+			return;
+		executor.shutdownNow();
+		executor = null;
+		isAvailable = false;
+	}
+
+	/**
+	 * Process the queue until it is empty
+	 */
+	private void drain() {
+		int batchSize = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_QUEUE_BATCH_SIZE, 100, 0));
+		try {
+			while (!Thread.currentThread().isInterrupted() && processBatch(batchSize, false) >= batchSize)
+				;
+		} catch (Exception e) {
+			// keep the worker scheduled
+			log.log(Level.SEVERE, "Failed to process " + TABLE_NAME, e);
+		}
+	}
+
+	/**
+	 * Index the deferred changes in batches until none is left
+	 * @param ctx - context of the calling process
+	 * @param batchSize - number of changes processed in one transaction
+	 * @param clientId - AD_Client_ID of the changes, -1 for all clients
+	 * @return number of processed changes
+	 */
+	public int processDeferred(Properties ctx, int batchSize, int clientId) {
+		int total = 0;
+		int count;
+		do {
+			Properties batchCtx = new Properties();
+			batchCtx.putAll(ctx);
+			count = processBatch(batchCtx, batchSize, true, clientId);
+			total += count;
+		} while (!Thread.currentThread().isInterrupted() && count >= batchSize);
+		return total;
+	}
+
+	/**
+	 * Claim a batch of queued changes on a worker thread
+	 * @param batchSize
+	 * @param isDeferred - claim the deferred changes
+	 * @return number of claimed changes
+	 */
+	int processBatch(int batchSize, boolean isDeferred) {
+		Properties ctx = new Properties();
+		ctx.putAll(Env.getCtx());
+		ServerContext.setCurrentInstance(ctx);
+		try {
+			return processBatch(ctx, batchSize, isDeferred, -1);
+		} finally {
+			ServerContext.dispose();
+		}
+	}
+
+	/**
+	 * Claim a batch of queued changes, index them and remove the indexed ones from the queue,
+	 * the failed ones are retried later
+	 * @param ctx - context of the batch, AD_Client_ID is set per change
+	 * @param batchSize
+	 * @param isDeferred - claim the deferred changes
+	 * @param clientId - claim the changes of the client, -1 for all clients
+	 * @return number of claimed changes
+	 */
+	private int processBatch(Properties ctx, int batchSize, boolean isDeferred, int clientId) {
+		Trx trx = Trx.get(Trx.createTrxName("SearchIdxQueue"), true);
+		String trxName = trx.getTrxName();
+		try {
+			List<Long> queueIds = new ArrayList<>();
+			List<SearchIndexChange> changes = claim(batchSize, isDeferred, clientId, queueIds, trxName);
+			// coalesce the batch, each index record is applied once with its latest operation
+			Map<Integer, Map<SearchIndexChange, SearchIndexChange>> resolvedByClient = new LinkedHashMap<>();
+			// index records of each claimed change, null if the change failed to resolve
+			List<Set<SearchIndexChange>> resolvedByChange = new ArrayList<>();
+			int resolvedCount = 0;
+			for (SearchIndexChange change : changes) {
+				Env.setContext(ctx, Env.AD_CLIENT_ID, change.getClientId());
+				try {
+					// dirty changes are resolved already, queued rows are committed, read the committed data
+					Set<SearchIndexChange> changeResolved = change.getSearchIndexId() > 0
+							? Collections.singleton(change)
+							: processor.resolve(ctx, change, null);
+					Map<SearchIndexChange, SearchIndexChange> resolved = resolvedByClient.computeIfAbsent(change.getClientId(), k -> new LinkedHashMap<>());
+					for (SearchIndexChange resolvedChange : changeResolved) {
+						resolved.put(resolvedChange, resolvedChange);
+						resolvedCount++;
+					}
+					resolvedByChange.add(changeResolved);
+				} catch (Exception e) {
+					// a failing record must not block the queue
+					log.log(Level.SEVERE, "Failed to resolve " + change, e);
+					resolvedByChange.add(null);
+				}
+			}
+			int indexCount = 0;
+			int appliedCount = 0;
+			Set<SearchIndexChange> failed = new HashSet<>();
+			for (Map.Entry<Integer, Map<SearchIndexChange, SearchIndexChange>> entry : resolvedByClient.entrySet()) {
+				Env.setContext(ctx, Env.AD_CLIENT_ID, entry.getKey());
+				indexCount += entry.getValue().size();
+				appliedCount += processor.apply(ctx, entry.getValue().values(), null, failed);
+			}
+
+			// a queued change is done when all its index records were applied
+			List<Long> doneIds = new ArrayList<>();
+			List<Long> failedIds = new ArrayList<>();
+			for (int i = 0; i < queueIds.size(); i++) {
+				Set<SearchIndexChange> changeResolved = resolvedByChange.get(i);
+				if (changeResolved == null || !Collections.disjoint(changeResolved, failed))
+					failedIds.add(queueIds.get(i));
+				else
+					doneIds.add(queueIds.get(i));
+			}
+			if (isRetry) {
+				remove(doneIds, trxName);
+				retryLater(failedIds, trxName);
+			} else {
+				remove(queueIds, trxName);
+			}
+			if (log.isLoggable(Level.FINE) && !changes.isEmpty())
+				log.fine("Processed " + changes.size() + " queued changes, " + indexCount + " index records (" + (resolvedCount - indexCount) + " collapsed, "
+						+ (indexCount - appliedCount) + " failed)");
+			trx.commit(true);
+			return changes.size();
+		} catch (SQLException e) {
+			trx.rollback();
+			throw new DBException(e);
+		} finally {
+			trx.close();
+		}
+	}
+
+	/**
+	 * Lock the oldest queued changes not locked by another worker
+	 * @param batchSize - max number of changes
+	 * @param isDeferred - claim the deferred changes
+	 * @param clientId - AD_Client_ID of the changes, -1 for all clients
+	 * @param queueIds - T_SearchIndex_Queue_ID of the claimed changes (out)
+	 * @param trxName - the rows stay locked until the transaction ends
+	 * @return claimed changes
+	 */
+	private List<SearchIndexChange> claim(int batchSize, boolean isDeferred, int clientId, List<Long> queueIds, String trxName) {
+		List<SearchIndexChange> changes = new ArrayList<>();
+		List<Object> params = new ArrayList<>();
+		StringBuilder sql = new StringBuilder("SELECT T_SearchIndex_Queue_ID, AD_Client_ID, AD_Table_ID, Record_ID, EventType, ")
+				.append(isResolved ? "AD_SearchIndex_ID" : "0").append(" FROM ")
+				.append(TABLE_NAME).append(" WHERE ");
+		if (isDeferredColumn) {
+			sql.append("IsDeferred=?");
+			params.add(isDeferred ? "Y" : "N");
+		} else if (isDeferred) {
+			// all changes are processed by the workers
+			return changes;
+		} else {
+			sql.append("1=1");
+		}
+		if (clientId >= 0) {
+			sql.append(" AND AD_Client_ID=?");
+			params.add(clientId);
+		}
+		if (isRetry) {
+			// failed changes wait for their next run, exhausted ones are kept for inspection
+			sql.append(" AND RetryCount<? AND (DateNextRun IS NULL OR DateNextRun<=?)");
+			params.add(getMaxRetries());
+			params.add(new Timestamp(System.currentTimeMillis()));
+		}
+		sql.append(" ORDER BY T_SearchIndex_Queue_ID");
+		// Oracle does not allow a row limit with FOR UPDATE, it locks only the fetched rows
+		if (DB.isPostgreSQL())
+			sql.append(" LIMIT ").append(batchSize);
+		sql.append(" FOR UPDATE SKIP LOCKED");
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = DB.prepareStatement(sql.toString(), trxName);
+			DB.setParameters(pstmt, params);
+			pstmt.setMaxRows(batchSize);
+			rs = pstmt.executeQuery();
+			while (rs.next()) {
+				queueIds.add(rs.getLong(1));
+				changes.add(new SearchIndexChange(rs.getInt(2), rs.getInt(6), rs.getInt(3), rs.getInt(4), rs.getString(5)));
+			}
+		} catch (SQLException e) {
+			throw new DBException(e, sql.toString());
+		} finally {
+			DB.close(rs, pstmt);
+		}
+		return changes;
+	}
+
+	/**
+	 * Remove processed changes from the queue
+	 * @param queueIds - T_SearchIndex_Queue_ID
+	 * @param trxName
+	 */
+	private void remove(List<Long> queueIds, String trxName) {
+		if (queueIds.isEmpty())
+			return;
+		StringBuilder sql = new StringBuilder("DELETE FROM ").append(TABLE_NAME).append(" WHERE T_SearchIndex_Queue_ID IN (");
+		for (int i = 0; i < queueIds.size(); i++) {
+			sql.append(i > 0 ? ",?" : "?");
+		}
+		sql.append(")");
+		DB.executeUpdateEx(sql.toString(), queueIds.toArray(), trxName);
+	}
+
+	/**
+	 * Increase the retry count of failed changes and postpone their next run
+	 * @param queueIds - T_SearchIndex_Queue_ID
+	 * @param trxName
+	 */
+	private void retryLater(List<Long> queueIds, String trxName) {
+		if (queueIds.isEmpty())
+			return;
+		int retryDelay = getRetryDelay();
+		List<Object> params = new ArrayList<>();
+		params.add(new Timestamp(System.currentTimeMillis() + retryDelay * 1000L));
+		StringBuilder sql = new StringBuilder("UPDATE ").append(TABLE_NAME).append(" SET RetryCount=RetryCount+1, DateNextRun=? WHERE T_SearchIndex_Queue_ID IN (");
+		for (int i = 0; i < queueIds.size(); i++) {
+			sql.append(i > 0 ? ",?" : "?");
+			params.add(queueIds.get(i));
+		}
+		sql.append(")");
+		DB.executeUpdateEx(sql.toString(), params.toArray(), trxName);
+		int exhausted = DB.getSQLValueEx(trxName, "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE RetryCount>=?", getMaxRetries());
+		log.warning(queueIds.size() + " queued changes failed to index, retry in " + retryDelay + " s"
+				+ (exhausted > 0 ? ", " + exhausted + " changes exceeded " + SYSCONFIG_QUEUE_MAX_RETRIES + " and are not retried" : ""));
+	}
+
+	/**
+	 * Get the delay before a failed change is claimed again
+	 * @return delay in seconds
+	 */
+	private int getRetryDelay() {
+		return Math.max(0, MSysConfig.getIntValue(SYSCONFIG_QUEUE_RETRY_DELAY, 60, 0));
+	}
+
+	/**
+	 * Get the max number of retries of a failed change
+	 * @return max retries
+	 */
+	private int getMaxRetries() {
+		return Math.max(1, MSysConfig.getIntValue(SYSCONFIG_QUEUE_MAX_RETRIES, 5, 0));
+	}
+}
@@ -0,0 +1,189 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.event;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.compiere.model.POInfo;
+
+import com.cloudempiere.searchindex.event.pojo.IndexedTable;
+import com.cloudempiere.searchindex.event.pojo.SearchIndexRoute;
+
+/**
+ *
+ * Immutable routing of the PO events to the index configurations, key is (AD_Client_ID, AD_Table_ID).<br>
+ * Built once when the configuration is loaded, the lookup is an open addressing hash
+ * of primitive keys, so dispatching an event does not allocate or scan the configurations.
+ * Clients without own configuration of a table are routed to System.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexRoutingTable {
+
+	/** Keys, 0 is an empty slot */
+	private final long[] keys;
+	/** Routes of the keys */
+	private final SearchIndexRoute[] routes;
+	/** keys.length - 1 */
+	private final int mask;
+	/** Number of routes */
+	private final int size;
+
+	/**
+	 * @param routeList - routes with unique (AD_Client_ID, AD_Table_ID)
+	 */
+	private SearchIndexRoutingTable(List<SearchIndexRoute> routeList) {
+		int capacity = Integer.highestOneBit(Math.max(2, routeList.size() * 2 - 1)) << 1;
+		keys = new long[capacity];
+		routes = new SearchIndexRoute[capacity];
+		mask = capacity - 1;
+		size = routeList.size();
+		for (SearchIndexRoute route : routeList) {
+			long key = key(route.getClientId(), route.getTableId());
+			int slot = slot(key);
+			while (keys[slot] != 0)
+				slot = (slot + 1) & mask;
+			keys[slot] = key;
+			routes[slot] = route;
+		}
+	}
+
+	/**
+	 * Build the routing table
+	 * @param ctx
+	 * @param indexedTablesByClient - index configurations, key is AD_Client_ID
+	 * @return routing table
+	 */
+	public static SearchIndexRoutingTable build(Properties ctx, Map<Integer, Set<IndexedTable>> indexedTablesByClient) {
+		List<SearchIndexRoute> routeList = new ArrayList<>();
+		Set<IndexedTable> systemConfigs = indexedTablesByClient.get(0);
+		for (Map.Entry<Integer, Set<IndexedTable>> entry : indexedTablesByClient.entrySet()) {
+			int clientId = entry.getKey();
+			Set<IndexedTable> configs = new LinkedHashSet<>(entry.getValue());
+			if (clientId != 0 && systemConfigs != null)
+				configs.addAll(systemConfigs);
+
+			Map<Integer, List<IndexedTable>> mainByTable = new LinkedHashMap<>();
+			Map<Integer, List<IndexedTable>> fkByTable = new LinkedHashMap<>();
+			Set<Integer> columnIds = new LinkedHashSet<>();
+			for (IndexedTable config : configs) {
+				mainByTable.computeIfAbsent(config.getTableId(), k -> new ArrayList<>()).add(config);
+				for (int fkTableId : config.getFKTableIDs()) {
+					fkByTable.computeIfAbsent(fkTableId, k -> new ArrayList<>()).add(config);
+				}
+				columnIds.addAll(config.getColumnIDs());
+			}
+
+			Set<Integer> tableIds = new LinkedHashSet<>(mainByTable.keySet());
+			tableIds.addAll(fkByTable.keySet());
+			for (int tableId : tableIds) {
+				List<IndexedTable> mainConfigs = mainByTable.getOrDefault(tableId, List.of());
+				List<IndexedTable> fkConfigs = fkByTable.getOrDefault(tableId, List.of());
+				routeList.add(new SearchIndexRoute(clientId, tableId,
+						mainConfigs.toArray(new IndexedTable[0]), fkConfigs.toArray(new IndexedTable[0]),
+						getColumnBits(ctx, tableId, columnIds)));
+			}
+		}
+		return new SearchIndexRoutingTable(routeList);
+	}
+
+	/**
+	 * Get the bitset of the indexed columns of a table
+	 * @param ctx
+	 * @param tableId - AD_Table_ID
+	 * @param columnIds - indexed AD_Column_IDs of all tables
+	 * @return bitset of POInfo column indexes
+	 */
+	private static long[] getColumnBits(Properties ctx, int tableId, Set<Integer> columnIds) {
+		POInfo poInfo = POInfo.getPOInfo(ctx, tableId);
+		if (poInfo == null)
+			return new long[0];
+		long[] bits = new long[(poInfo.getColumnCount() + 63) >>> 6];
+		for (int columnId : columnIds) {
+			int index = poInfo.getColumnIndex(columnId);
+			if (index >= 0)
+				bits[index >>> 6] |= 1L << index;
+		}
+		return bits;
+	}
+
+	/**
+	 * Get the route of the records of a table
+	 * @param clientId - AD_Client_ID
+	 * @param tableId - AD_Table_ID
+	 * @return route, null if the table is not indexed for the client
+	 */
+	public SearchIndexRoute get(int clientId, int tableId) {
+		SearchIndexRoute route = find(key(clientId, tableId));
+		if (route == null && clientId != 0)
+			route = find(key(0, tableId));
+		return route;
+	}
+
+	/**
+	 * Get the number of routes
+	 * @return number of (AD_Client_ID, AD_Table_ID) routes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find the route of a key
+	 * @param key
+	 * @return route or null
+	 */
+	private SearchIndexRoute find(long key) {
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key)
+				return routes[slot];
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * @param key
+	 * @return first slot of the key
+	 */
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * @param clientId
+	 * @param tableId
+	 * @return key of the route, never 0 for a valid AD_Table_ID
+	 */
+	private static long key(int clientId, int tableId) {
+		return ((long) clientId << 32) | (tableId & 0xFFFFFFFFL);
+	}
+}
@@ -0,0 +1,357 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.adempiere.util.ServerContext;
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+
+import com.cloudempiere.searchindex.event.pojo.SearchIndexChange;
+
+/**
+ *
+ * Bounded in-memory queue between the committed changes and the search index providers.<br>
+ * With a capacity (SysConfig SEARCH_INDEX_WORK_QUEUE_CAPACITY, number of pending changes)
+ * the changes are resolved and applied by SEARCH_INDEX_WORK_QUEUE_WORKERS threads and never on the committing thread,
+ * the event handler only collects the changed records.
+ * When the queue is full the resolved changes are marked dirty in the {@link SearchIndexQueue} table
+ * and caught up by its workers, saves are not blocked. Changes which fail to apply are queued
+ * there for retry.
+ * Without a capacity the changes are applied on the calling thread, background jobs
+ * (FK fan-out) on a single unbounded thread.<br>
+ * Queue depth, rejected changes and drain rate are exposed by the getters.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexWorkQueue {
+
+	/**	Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexWorkQueue.class);
+
+	/** Max number of pending changes, 0 applies the changes on the calling thread */
+	public static final String SYSCONFIG_WORK_QUEUE_CAPACITY = "SEARCH_INDEX_WORK_QUEUE_CAPACITY";
+	/** Number of worker threads */
+	public static final String SYSCONFIG_WORK_QUEUE_WORKERS = "SEARCH_INDEX_WORK_QUEUE_WORKERS";
+
+	/** Applies the changes */
+	private final SearchIndexChangeProcessor processor;
+	/** Dirty records table used when the queue is full */
+	private final SearchIndexQueue dirtyQueue;
+	/** Bounded workers, null if not started */
+	private volatile ThreadPoolExecutor executor = null;
+	/** Background thread without capacity, created on first use */
+	private ExecutorService backgroundExecutor = null;
+	/** Max number of pending changes */
+	private volatile int capacity = 0;
+
+	/** Pending changes */
+	private final AtomicInteger depth = new AtomicInteger();
+	/** Changes marked dirty because the queue was full */
+	private final AtomicLong rejectedCount = new AtomicLong();
+	/** Applied changes */
+	private final AtomicLong appliedCount = new AtomicLong();
+	/** Applied changes per second, measured over the last second of work */
+	private volatile double drainRate = 0;
+	/** Start of the current drain rate sample */
+	private long sampleStart = System.currentTimeMillis();
+	/** Applied changes in the current drain rate sample */
+	private long sampleCount = 0;
+	/** Last saturation warning */
+	private volatile long lastWarning = 0;
+
+	/**
+	 * @param processor - applies the changes
+	 * @param dirtyQueue - dirty records table used when the queue is full
+	 */
+	public SearchIndexWorkQueue(SearchIndexChangeProcessor processor, SearchIndexQueue dirtyQueue) {
+		this.processor = processor;
+		this.dirtyQueue = dirtyQueue;
+	}
+
+	/**
+	 * Start the workers if a capacity is configured
+	 */
+	public synchronized void start() {
+		if (executor != null)
+			return;
+		capacity = MSysConfig.getIntValue(SYSCONFIG_WORK_QUEUE_CAPACITY, 0, 0);
+		if (capacity <= 0)
+			return;
+		int workers = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_WORK_QUEUE_WORKERS, 2, 0));
+		AtomicInteger threadNo = new AtomicInteger();
+		executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "SearchIndexWork-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (log.isLoggable(Level.INFO))
+			log.info("SearchIndex work queue: capacity " + capacity + ", " + workers + " workers");
+	}
+
+	/**
+	 * Stop the workers, pending changes are marked dirty
+	 */
+	public synchronized void stop() {
+		if (executor != null) {
+			for (Runnable pending : executor.shutdownNow()) {
+				if (pending instanceof Job) {
+					depth.addAndGet(-((Job) pending).size());
+					degrade((Job) pending);
+				}
+			}
+			executor = null;
+		}
+		if (backgroundExecutor != null) {
+			backgroundExecutor.shutdownNow();
+			backgroundExecutor = null;
+		}
+	}
+
+	/**
+	 * Check if the workers are running, the changed records are resolved by them
+	 * @return true with a capacity
+	 */
+	public boolean isBounded() {
+		return executor != null;
+	}
+
+	/**
+	 * Apply committed changes
+	 * @param ctx - context of the client of the changes
+	 * @param changes - resolved changes or changed records, see {@link SearchIndexChangeProcessor#resolve}
+	 * @param isBackground - never apply on the calling thread, e.g. FK fan-out
+	 */
+	public void execute(Properties ctx, Collection<SearchIndexChange> changes, boolean isBackground) {
+		if (changes.isEmpty())
+			return;
+		Job job = new Job(ctx, changes);
+		ThreadPoolExecutor workers = executor;
+		if (workers == null) {
+			if (isBackground)
+				getBackgroundExecutor().execute(job);
+			else
+				job.apply();
+			return;
+		}
+
+		// reserve the capacity, the queue never blocks the caller
+		int newDepth = depth.addAndGet(job.size());
+		// a job larger than the capacity is accepted by an empty queue
+		if (newDepth > capacity && newDepth != job.size()) {
+			depth.addAndGet(-job.size());
+			degrade(job);
+			return;
+		}
+		job.isQueued = true;
+		try {
+			workers.execute(job);
+		} catch (RuntimeException e) {
+			// shut down
+			depth.addAndGet(-job.size());
+			degrade(job);
+		}
+	}
+
+	/**
+	 * Mark the changes of a job dirty, caught up by the {@link SearchIndexQueue} workers.
+	 * Without the dirty records table the changes are lost, saves are never blocked.
+	 * @param job
+	 */
+	private void degrade(Job job) {
+		rejectedCount.addAndGet(job.size());
+		long now = System.currentTimeMillis();
+		if (now - lastWarning > 60_000) {
+			lastWarning = now;
+			log.warning("SearchIndex work queue saturated: " + getMetrics());
+		}
+		if (dirtyQueue.isAvailable()) {
+			try {
+				dirtyQueue.enqueue(job.changes);
+				return;
+			} catch (Exception e) {
+				log.log(Level.SEVERE, "Failed to mark " + job.size() + " search index changes dirty", e);
+			}
+		}
+		log.severe(job.size() + " search index changes dropped, rebuild the index. Run migration script: 202610161600_SearchIndexQueue.sql");
+	}
+
+	/**
+	 * Get the background thread used without capacity
+	 * @return executor
+	 */
+	private synchronized ExecutorService getBackgroundExecutor() {
+		if (backgroundExecutor == null) {
+			backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "SearchIndexBackground");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return backgroundExecutor;
+	}
+
+	/**
+	 * Count applied changes and update the drain rate
+	 * @param count - applied changes
+	 */
+	private void addApplied(int count) {
+		appliedCount.addAndGet(count);
+		synchronized (this) {
+			sampleCount += count;
+			long now = System.currentTimeMillis();
+			if (now - sampleStart >= 1000) {
+				drainRate = sampleCount * 1000d / (now - sampleStart);
+				sampleStart = now;
+				sampleCount = 0;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of pending changes
+	 * @return queue depth
+	 */
+	public int getDepth() {
+		return depth.get();
+	}
+
+	/**
+	 * Get the number of changes marked dirty because the queue was full
+	 * @return rejected changes
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Get the number of applied changes
+	 * @return applied changes
+	 */
+	public long getAppliedCount() {
+		return appliedCount.get();
+	}
+
+	/**
+	 * Get the drain rate
+	 * @return applied changes per second
+	 */
+	public double getDrainRate() {
+		return drainRate;
+	}
+
+	/**
+	 * Get the metrics as text
+	 * @return depth, capacity, rejected, applied and drain rate
+	 */
+	public String getMetrics() {
+		return "depth=" + getDepth() + "/" + capacity + ", rejected=" + getRejectedCount()
+				+ ", applied=" + getAppliedCount() + ", drainRate=" + Math.round(getDrainRate()) + "/s";
+	}
+
+	/**
+	 * Changes of one client applied together
+	 */
+	private class Job implements Runnable {
+
+		/** Copy of the context of the client */
+		private final Properties ctx;
+		/** Resolved changes or changed records */
+		private final List<SearchIndexChange> changes;
+		/** Counted in the queue depth */
+		private boolean isQueued = false;
+
+		private Job(Properties ctx, Collection<SearchIndexChange> changes) {
+			this.ctx = new Properties();
+			this.ctx.putAll(ctx);
+			this.changes = new ArrayList<>(changes);
+		}
+
+		private int size() {
+			return changes.size();
+		}
+
+		/**
+		 * Resolve the changed records and apply the changes on the current thread, the failed ones are queued for retry
+		 */
+		private void apply() {
+			List<SearchIndexChange> failed = new ArrayList<>();
+			try {
+				// changed records collected by the event handler, the committed data is read
+				Set<SearchIndexChange> resolved = new LinkedHashSet<>();
+				for (SearchIndexChange change : changes) {
+					if (change.getSearchIndexId() > 0)
+						resolved.add(change);
+					else
+						resolved.addAll(processor.resolve(ctx, change, null));
+				}
+				addApplied(processor.apply(ctx, resolved, null, failed));
+			} catch (Exception e) {
+				log.log(Level.SEVERE, "Failed to apply search index changes", e);
+				// applying a change again is idempotent
+				failed.clear();
+				failed.addAll(changes);
+			}
+			if (failed.isEmpty())
+				return;
+			if (dirtyQueue.isAvailable()) {
+				try {
+					dirtyQueue.retry(failed);
+					return;
+				} catch (Exception e) {
+					log.log(Level.SEVERE, "Failed to queue " + failed.size() + " search index changes for retry", e);
+				}
+			}
+			log.severe(failed.size() + " search index changes failed to apply and are lost, rebuild the index");
+		}
+
+		/**
+		 * Apply the changes on a worker thread
+		 */
+		@Override
+		public void run() {
+			ServerContext.setCurrentInstance(ctx);
+			try {
+				apply();
+			} finally {
+				ServerContext.dispose();
+				if (isQueued)
+					depth.addAndGet(-size());
+			}
+		}
+	}
+}
@@ -3,6 +3,8 @@ package com.cloudempiere.searchindex.event.pojo;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.cloudempiere.searchindex.model.MSearchIndexTable;
+
 public class IndexedTable {
 
 	/** AD_SearchIndex_ID */
@@ -21,13 +23,16 @@ public class IndexedTable {
 	private Set<String> fkTableNames;
 	/** Indexed Columns - AD_Column_IDs */
 	private Set<Integer> columnIds;
+	/** AD_SearchIndexTable.IndexingPolicy */
+	private String indexingPolicy;
 
-    public IndexedTable(int searchIndexId, String searchIndexName, String tableName, int tableId, String whereClause) {
+    public IndexedTable(int searchIndexId, String searchIndexName, String tableName, int tableId, String whereClause, String indexingPolicy) {
     	this.searchIndexId = searchIndexId;
     	this.searchIndexName = searchIndexName;
         this.tableName = tableName;
         this.tableId = tableId;
         this.whereClause = whereClause;
+        this.indexingPolicy = indexingPolicy != null ? indexingPolicy : MSearchIndexTable.INDEXINGPOLICY_Synchronous;
         this.fkTableIDs = new HashSet<>();
         this.fkTableNames = new HashSet<>();
         this.columnIds = new HashSet<>();
@@ -49,7 +54,7 @@ public class IndexedTable {
     	this.fkTableNames.add(fkTableName);
     }
     
-    public void addFKTableName(int fkTableId) {
+    public void addFKTableId(int fkTableId) {
     	this.fkTableIDs.add(fkTableId);
     }
 
@@ -57,6 +62,10 @@ public class IndexedTable {
         return fkTableNames;
     }
 
+	public Set<Integer> getFKTableIDs() {
+		return fkTableIDs;
+	}
+
 	public int getSearchIndexId() {
 		return searchIndexId;
 	}
@@ -73,4 +82,12 @@ public class IndexedTable {
 		return columnIds;
 	}
 
+	/**
+	 * Get the indexing policy of the table
+	 * @return MSearchIndexTable.INDEXINGPOLICY_*
+	 */
+	public String getIndexingPolicy() {
+		return indexingPolicy;
+	}
+
 }
@@ -0,0 +1,112 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.event.pojo;
+
+import java.util.Objects;
+
+/**
+ * Change of a record relevant for the search indexes.<br>
+ * Without AD_SearchIndex_ID it is the changed record as queued by the event handler,
+ * with AD_SearchIndex_ID it is a record of an index table to update or delete.<br>
+ * Changes of the same record are equal regardless of the operation, the latest one wins.
+ */
+public class SearchIndexChange {
+
+	/** Operation: create or update the index rows */
+	public static final String OP_UPDATE = "U";
+	/** Operation: delete the index rows */
+	public static final String OP_DELETE = "D";
+
+	/* AD_Client_ID */
+	private final int clientId;
+	/* AD_SearchIndex_ID, 0 if not resolved */
+	private final int searchIndexId;
+	/* AD_Table_ID */
+	private final int tableId;
+	/* Record_ID */
+	private final int recordId;
+	/* Operation */
+	private final String op;
+
+	public SearchIndexChange(int clientId, int tableId, int recordId, String op) {
+		this(clientId, 0, tableId, recordId, op);
+	}
+
+	public SearchIndexChange(int clientId, int searchIndexId, int tableId, int recordId, String op) {
+		this.clientId = clientId;
+		this.searchIndexId = searchIndexId;
+		this.tableId = tableId;
+		this.recordId = recordId;
+		this.op = op;
+	}
+
+	public int getClientId() {
+		return clientId;
+	}
+
+	public int getSearchIndexId() {
+		return searchIndexId;
+	}
+
+	public int getTableId() {
+		return tableId;
+	}
+
+	public int getRecordId() {
+		return recordId;
+	}
+
+	public String getOp() {
+		return op;
+	}
+
+	public boolean isDelete() {
+		return OP_DELETE.equals(op);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof SearchIndexChange))
+			return false;
+		SearchIndexChange other = (SearchIndexChange) obj;
+		return clientId == other.clientId && searchIndexId == other.searchIndexId && tableId == other.tableId
+				&& recordId == other.recordId;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(clientId, searchIndexId, tableId, recordId);
+	}
+
+	@Override
+	public String toString() {
+		return "SearchIndexChange{" +
+				"clientId=" + clientId +
+				", searchIndexId=" + searchIndexId +
+				", tableId=" + tableId +
+				", recordId=" + recordId +
+				", op=" + op +
+				'}';
+	}
+}
@@ -0,0 +1,167 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.event.pojo;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.compiere.model.PO;
+
+import com.cloudempiere.searchindex.model.MSearchIndexTable;
+
+/**
+ * Index configurations affected by the records of a table of a client (including System).<br>
+ * The table is the main table of the {@link #getMainConfigs()} and an FK table of the {@link #getFKConfigs()}.
+ * The indexed columns are kept as a bitset of the POInfo column indexes of the table.
+ * A table shared by configurations with different indexing policies uses the most immediate one.<br>
+ * Immutable, built when the configuration is loaded.
+ */
+public class SearchIndexRoute {
+
+	/* AD_Client_ID */
+	private final int clientId;
+	/* AD_Table_ID */
+	private final int tableId;
+	/* Configurations with the table as main table */
+	private final IndexedTable[] mainConfigs;
+	/* Configurations with the table as FK table */
+	private final IndexedTable[] fkConfigs;
+	/* Main and FK configurations */
+	private final Set<IndexedTable> configs;
+	/* Indexed columns, bit is the POInfo column index */
+	private final long[] columnBits;
+	/* Indexed columns, POInfo column indexes in ascending order */
+	private final int[] columnIndexes;
+	/* Most immediate indexing policy of the configurations */
+	private final String indexingPolicy;
+
+	public SearchIndexRoute(int clientId, int tableId, IndexedTable[] mainConfigs, IndexedTable[] fkConfigs, long[] columnBits) {
+		this.clientId = clientId;
+		this.tableId = tableId;
+		this.mainConfigs = mainConfigs;
+		this.fkConfigs = fkConfigs;
+		this.columnBits = columnBits;
+		Set<IndexedTable> allConfigs = new LinkedHashSet<>();
+		Collections.addAll(allConfigs, mainConfigs);
+		Collections.addAll(allConfigs, fkConfigs);
+		this.configs = Collections.unmodifiableSet(allConfigs);
+		String policy = MSearchIndexTable.INDEXINGPOLICY_Deferred;
+		for (IndexedTable config : allConfigs) {
+			if (MSearchIndexTable.INDEXINGPOLICY_Synchronous.equals(config.getIndexingPolicy())) {
+				policy = MSearchIndexTable.INDEXINGPOLICY_Synchronous;
+				break;
+			}
+			if (MSearchIndexTable.INDEXINGPOLICY_Asynchronous.equals(config.getIndexingPolicy()))
+				policy = MSearchIndexTable.INDEXINGPOLICY_Asynchronous;
+		}
+		this.indexingPolicy = policy;
+
+		int count = 0;
+		for (long word : columnBits)
+			count += Long.bitCount(word);
+		columnIndexes = new int[count];
+		int i = 0;
+		for (int word = 0; word < columnBits.length; word++) {
+			long bits = columnBits[word];
+			while (bits != 0) {
+				columnIndexes[i++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+	}
+
+	public int getClientId() {
+		return clientId;
+	}
+
+	public int getTableId() {
+		return tableId;
+	}
+
+	public boolean isMain() {
+		return mainConfigs.length > 0;
+	}
+
+	public boolean isFK() {
+		return fkConfigs.length > 0;
+	}
+
+	public IndexedTable[] getMainConfigs() {
+		return mainConfigs;
+	}
+
+	public IndexedTable[] getFKConfigs() {
+		return fkConfigs;
+	}
+
+	/**
+	 * Get the main and FK configurations
+	 * @return unmodifiable set
+	 */
+	public Set<IndexedTable> getConfigs() {
+		return configs;
+	}
+
+	/**
+	 * Get the indexing policy of the records of the table
+	 * @return MSearchIndexTable.INDEXINGPOLICY_*
+	 */
+	public String getIndexingPolicy() {
+		return indexingPolicy;
+	}
+
+	/**
+	 * Check if a column is indexed
+	 * @param columnIndex - POInfo column index
+	 * @return true if indexed
+	 */
+	public boolean isIndexedColumn(int columnIndex) {
+		int word = columnIndex >>> 6;
+		return columnIndex >= 0 && word < columnBits.length && (columnBits[word] & (1L << columnIndex)) != 0;
+	}
+
+	/**
+	 * Check if an indexed column of a record changed.
+	 * Only the indexed columns are checked, stops at the first change.
+	 * @param po - record of the table
+	 * @return true if an indexed column changed
+	 */
+	public boolean isIndexedColumnChanged(PO po) {
+		for (int columnIndex : columnIndexes) {
+			if (po.is_ValueChanged(columnIndex))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchIndexRoute{" +
+				"clientId=" + clientId +
+				", tableId=" + tableId +
+				", main=" + mainConfigs.length +
+				", fk=" + fkConfigs.length +
+				", policy=" + indexingPolicy +
+				'}';
+	}
+}
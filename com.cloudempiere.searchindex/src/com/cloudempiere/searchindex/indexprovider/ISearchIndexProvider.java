@@ -27,11 +27,13 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.IProcessUI;
 import org.compiere.util.CLogger;
 
 import com.cloudempiere.searchindex.model.MSearchIndexProvider;
 import com.cloudempiere.searchindex.util.ISearchResult;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexSourceQuery;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
 
 /**
@@ -44,6 +46,9 @@ import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
 public interface ISearchIndexProvider
 {
 	public static CLogger log = CLogger.getCLogger (ISearchIndexProvider.class);
+
+	/** Use the bulk load path of the provider for full rebuilds */
+	public static final String SYSCONFIG_BULK_LOAD = "SEARCH_INDEX_BULK_LOAD";
 	
 	public void init(MSearchIndexProvider searchIndexProvider, IProcessUI processUI);
 
@@ -83,6 +88,32 @@ public interface ISearchIndexProvider
 	 */
 	public void deleteIndex(Properties ctx, String searchIndexName, String query, Object[] params, String trxName);
 
+	/**
+	 * Delete the index records of a table whose record is not returned by the key query
+	 * @param ctx
+	 * @param searchIndexName
+	 * @param tableId - AD_Table_ID of the records
+	 * @param keyQuery - query of the indexed record keys, built by the search index configuration
+	 * @param keyParams - parameters of the key query
+	 * @param trxName
+	 */
+	public default void deleteIndexNotInKeys(Properties ctx, String searchIndexName, int tableId, String keyQuery, Object[] keyParams, String trxName) {
+		deleteIndexNotInKeys(ctx, searchIndexName, tableId, -1, -1, keyQuery, keyParams, trxName);
+	}
+
+	/**
+	 * Delete the index records of a table within a key range whose record is not returned by the key query
+	 * @param ctx
+	 * @param searchIndexName
+	 * @param tableId - AD_Table_ID of the records
+	 * @param fromKey - first Record_ID (inclusive), -1 for unbounded
+	 * @param toKey - end Record_ID (exclusive), -1 for unbounded
+	 * @param keyQuery - query of the indexed record keys, built by the search index configuration
+	 * @param keyParams - parameters of the key query
+	 * @param trxName
+	 */
+	public void deleteIndexNotInKeys(Properties ctx, String searchIndexName, int tableId, int fromKey, int toKey, String keyQuery, Object[] keyParams, String trxName);
+
 	/**
 	 * Recreate index
 	 * @param ctx
@@ -91,6 +122,76 @@ public interface ISearchIndexProvider
 	 */
 	public void reCreateIndex(Properties ctx, Map<Integer, Set<SearchIndexTableData>> indexRecordsMap, String trxName);
 
+	/**
+	 * Start a full rebuild of an index, records written afterwards in the transaction
+	 * replace the current content when {@link #endRebuild(Properties, String, String)} is called.
+	 * By default the current content of the client is deleted.
+	 * @param ctx
+	 * @param searchIndexName
+	 * @param trxName
+	 */
+	public default void beginRebuild(Properties ctx, String searchIndexName, String trxName) {
+		deleteIndex(ctx, searchIndexName, trxName);
+	}
+
+	/**
+	 * Finish a full rebuild of an index started by {@link #beginRebuild(Properties, String, String)},
+	 * the caller commits afterwards to release locks taken by the provider
+	 * @param ctx
+	 * @param searchIndexName
+	 * @param trxName
+	 */
+	public default void endRebuild(Properties ctx, String searchIndexName, String trxName) {
+	}
+
+	/**
+	 * Load records into an index in bulk, used by full rebuilds.
+	 * Providers without a dedicated bulk path write through {@link #createIndex(Properties, Map, String)}.
+	 * @param ctx
+	 * @param indexRecordsMap - key is AD_SearchIndex_ID
+	 * @param trxName
+	 */
+	public default void bulkLoadIndex(Properties ctx, Map<Integer, Set<SearchIndexTableData>> indexRecordsMap, String trxName) {
+		createIndex(ctx, indexRecordsMap, trxName);
+	}
+
+	/**
+	 * Check if the provider can index directly from a source query, see {@link #indexFromSource(Properties, SearchIndexSourceQuery, String)}
+	 * @return true if supported
+	 */
+	public default boolean isSourceIndexSupported() {
+		return false;
+	}
+
+	/**
+	 * Index the records of a source query with a single statement executed by the database,
+	 * column values are not transferred to the application server.
+	 * @param ctx
+	 * @param sourceQuery - compiled AD_SearchIndexTable
+	 * @param trxName
+	 * @return number of indexed records
+	 */
+	public default int indexFromSource(Properties ctx, SearchIndexSourceQuery sourceQuery, String trxName) {
+		throw new AdempiereException("Indexing from source query is not supported by " + getClass().getSimpleName());
+	}
+
+	/**
+	 * Get the number of index rows written by this provider instance,
+	 * rows with unchanged content are not rewritten and counted by {@link #getSkippedCount()}
+	 * @return written rows, -1 if not tracked by the provider
+	 */
+	public default int getWrittenCount() {
+		return -1;
+	}
+
+	/**
+	 * Get the number of index rows not rewritten by this provider instance because their content did not change
+	 * @return skipped rows
+	 */
+	public default int getSkippedCount() {
+		return 0;
+	}
+
 	/**
 	 * Get search results
 	 * @param ctx
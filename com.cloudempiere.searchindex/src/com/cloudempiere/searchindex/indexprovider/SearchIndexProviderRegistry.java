@@ -0,0 +1,80 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.indexprovider;
+
+import java.util.Properties;
+
+import org.compiere.util.CCache;
+
+import com.cloudempiere.searchindex.model.MSearchIndexProvider;
+
+/**
+ *
+ * Registry of long-lived Search Index Provider instances, one per AD_SearchIndexProvider_ID.<br>
+ * The instances are shared by the background indexing (events, queue), they are initialised
+ * without process UI and keep their resolved per-client settings across calls.
+ * The registry is reset when AD_SearchIndexProvider changes.<br>
+ * Processes and searches reporting progress or counters use their own instance,
+ * see {@link com.cloudempiere.searchindex.util.SearchIndexUtils#getSearchIndexProvider}.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexProviderRegistry {
+
+	/** Shared providers, key is AD_SearchIndexProvider_ID */
+	private static final CCache<Integer, ISearchIndexProvider> s_providers = new CCache<>(MSearchIndexProvider.Table_Name, "SearchIndexProviderRegistry", 10);
+
+	/**
+	 * Get the shared provider instance
+	 * @param ctx
+	 * @param searchIndexProviderId - AD_SearchIndexProvider_ID
+	 * @return initialised provider, null if the provider class is unknown
+	 */
+	public static ISearchIndexProvider get(Properties ctx, int searchIndexProviderId) {
+		ISearchIndexProvider provider = s_providers.get(searchIndexProviderId);
+		if (provider != null)
+			return provider;
+
+		synchronized (s_providers) {
+			provider = s_providers.get(searchIndexProviderId);
+			if (provider != null)
+				return provider;
+			MSearchIndexProvider providerDef = MSearchIndexProvider.get(ctx, searchIndexProviderId, null);
+			if (providerDef == null)
+				return null;
+			provider = new SearchIndexProviderFactory().getSearchIndexProvider(providerDef.getClassname());
+			if (provider == null)
+				return null;
+			provider.init(providerDef, null);
+			s_providers.put(searchIndexProviderId, provider);
+		}
+		return provider;
+	}
+
+	/**
+	 * Drop the shared instances and their cached settings
+	 */
+	public static void reset() {
+		s_providers.reset();
+	}
+}
@@ -67,6 +67,11 @@ public class ElasticSearchIndexProvider implements ISearchIndexProvider {
 		
 	}
 
+	@Override
+	public void deleteIndexNotInKeys(Properties ctx, String searchIndexName, int tableId, int fromKey, int toKey, String keyQuery, Object[] keyParams, String trxName) {
+		
+	}
+
 	@Override
 	public void reCreateIndex(Properties ctx, Map<Integer, Set<SearchIndexTableData>> indexRecordsMap, String trxName) {
 		
@@ -0,0 +1,226 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.indexprovider.pgtextsearch;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Trx;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import com.cloudempiere.searchindex.util.pojo.SearchIndexColumnData;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
+
+/**
+ *
+ * Bulk loader for PostgreSQL Text Search indexes.<br>
+ * Document parts are streamed with COPY into the UNLOGGED staging table
+ * T_SearchIndex_Stage and the tsvectors are built by one set-based
+ * INSERT ... SELECT per index table.<br>
+ * The staging table and the searchindex_tsvector_agg aggregate are created
+ * by the migration script 202610161200_SearchIndexBulkLoad.sql.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+class PGTextSearchBulkLoader {
+
+	/** Logger */
+	private static final CLogger log = CLogger.getCLogger(PGTextSearchBulkLoader.class);
+
+	/** Staging table */
+	static final String STAGE_TABLE = "T_SearchIndex_Stage";
+	/** Aggregate concatenating tsvectors (tsvector_concat) */
+	static final String TSVECTOR_AGG = "searchindex_tsvector_agg";
+	/** Size of the COPY buffer in bytes */
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	private final PGTextSearchIndexProvider provider;
+	private final String tsConfig;
+	private final String trxName;
+
+	/**
+	 * @param provider - used for weight calculation and content normalization
+	 * @param tsConfig - text search configuration
+	 * @param trxName - must be an open transaction, staged rows are removed before it ends
+	 */
+	PGTextSearchBulkLoader(PGTextSearchIndexProvider provider, String tsConfig, String trxName) {
+		this.provider = provider;
+		this.tsConfig = tsConfig;
+		this.trxName = trxName;
+	}
+
+	/**
+	 * Check if bulk load can be used in the transaction
+	 * @param trxName
+	 * @return true if the staging objects exist and the connection supports COPY
+	 */
+	static boolean isAvailable(String trxName) {
+		if (trxName == null)
+			return false;
+		int count = DB.getSQLValue(trxName, "SELECT COUNT(*) FROM pg_proc WHERE proname=?", TSVECTOR_AGG);
+		if (count <= 0) {
+			log.warning("Aggregate " + TSVECTOR_AGG + " not found. Run migration script: 202610161200_SearchIndexBulkLoad.sql");
+			return false;
+		}
+		count = DB.getSQLValue(trxName, "SELECT COUNT(*) FROM pg_class WHERE relname=?", STAGE_TABLE.toLowerCase());
+		if (count <= 0) {
+			log.warning("Table " + STAGE_TABLE + " not found. Run migration script: 202610161200_SearchIndexBulkLoad.sql");
+			return false;
+		}
+		try {
+			Connection conn = getConnection(trxName);
+			return conn != null && conn.isWrapperFor(PGConnection.class);
+		} catch (SQLException | LinkageError e) {
+			log.log(Level.WARNING, "COPY is not supported by the connection", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Load the records of one search index table
+	 * @param clientId - AD_Client_ID
+	 * @param searchIndexRecord - records to load
+	 * @param safeTableName - validated search index table name
+	 * @param isContentHash - store the content hash and skip unchanged rows
+	 * @return number of written index rows
+	 * @throws SQLException
+	 */
+	int load(int clientId, SearchIndexTableData searchIndexRecord, String safeTableName, boolean isContentHash) throws SQLException {
+		copyToStage(clientId, searchIndexRecord);
+
+		String tsvector = TSVECTOR_AGG + "("
+				+ "setweight(to_tsvector('simple'::regconfig, value), tsweight::\"char\") || "
+				+ "setweight(to_tsvector('" + tsConfig + "'::regconfig, normalized), tsweight::\"char\") "
+				+ "ORDER BY seqno)";
+		StringBuilder sql = new StringBuilder();
+		if (isContentHash) {
+			sql.append("INSERT INTO ").append(safeTableName).append(" AS idx (ad_client_id, ad_table_id, record_id, idx_tsvector, ")
+			   .append(PGTextSearchIndexProvider.CONTENT_HASH_COLUMN).append(") ")
+			   .append("SELECT ad_client_id, ad_table_id, record_id, idx_tsvector, ").append(PGTextSearchIndexProvider.getContentHashSQL("idx_tsvector"))
+			   .append(" FROM (SELECT ad_client_id, ad_table_id, record_id, ").append(tsvector).append(" AS idx_tsvector ")
+			   .append("FROM ").append(STAGE_TABLE).append(" ")
+			   .append("GROUP BY ad_client_id, ad_table_id, record_id) doc");
+		} else {
+			sql.append("INSERT INTO ").append(safeTableName).append(" (ad_client_id, ad_table_id, record_id, idx_tsvector) ")
+			   .append("SELECT ad_client_id, ad_table_id, record_id, ").append(tsvector).append(" ")
+			   .append("FROM ").append(STAGE_TABLE).append(" ")
+			   .append("GROUP BY ad_client_id, ad_table_id, record_id");
+		}
+		// Fix ADR-006: Include ad_client_id in UNIQUE constraint to prevent multi-tenant data corruption
+		sql.append(PGTextSearchIndexProvider.getConflictClause(isContentHash));
+		int count = DB.executeUpdateEx(sql.toString(), trxName);
+
+		// rows are only visible to this transaction, DELETE avoids the lock taken by TRUNCATE
+		DB.executeUpdateEx("DELETE FROM " + STAGE_TABLE, trxName);
+		return count;
+	}
+
+	/**
+	 * Stream the document parts of the records into the staging table
+	 * @param clientId
+	 * @param searchIndexRecord
+	 * @throws SQLException
+	 */
+	private void copyToStage(int clientId, SearchIndexTableData searchIndexRecord) throws SQLException {
+		String copySQL = "COPY " + STAGE_TABLE + " (ad_client_id, ad_table_id, record_id, seqno, tsweight, value, normalized) FROM STDIN WITH (FORMAT csv)";
+		CopyIn copyIn = getConnection(trxName).unwrap(PGConnection.class).getCopyAPI().copyIn(copySQL);
+		try {
+			StringBuilder buffer = new StringBuilder();
+			for (Map<String, SearchIndexColumnData> tableDataSet : searchIndexRecord.getColumnData()) {
+				if (tableDataSet.get("Record_ID") == null)
+					continue;
+
+				int recordId = Integer.parseInt(tableDataSet.get("Record_ID").getValue().toString());
+				int seqNo = 0;
+				for (SearchIndexColumnData columnData : tableDataSet.values()) {
+					if (columnData == null)
+						continue;
+					String value = PGTextSearchIndexProvider.toDocumentText(columnData.getValue());
+					buffer.append(clientId).append(',')
+						.append(searchIndexRecord.getTableId()).append(',')
+						.append(recordId).append(',')
+						.append(seqNo++).append(',')
+						.append(provider.getTSWeight(columnData.getSearchWeight(), columnData.getMaxSearchWeight())).append(',');
+					appendCSV(buffer, value).append(',');
+					appendCSV(buffer, PGTextSearchIndexProvider.normalizeDocumentContent(value)).append('\n');
+				}
+				if (buffer.length() >= COPY_BUFFER_SIZE) {
+					writeToCopy(copyIn, buffer);
+				}
+			}
+			writeToCopy(copyIn, buffer);
+			copyIn.endCopy();
+		} finally {
+			if (copyIn.isActive())
+				copyIn.cancelCopy();
+		}
+	}
+
+	/**
+	 * Write and clear the buffer
+	 * @param copyIn
+	 * @param buffer
+	 * @throws SQLException
+	 */
+	private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+		if (buffer.length() == 0)
+			return;
+		byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+		copyIn.writeToCopy(bytes, 0, bytes.length);
+		buffer.setLength(0);
+	}
+
+	/**
+	 * Append a quoted CSV value, NUL characters are not allowed in PostgreSQL text
+	 * @param buffer
+	 * @param value
+	 * @return buffer
+	 */
+	private StringBuilder appendCSV(StringBuilder buffer, String value) {
+		buffer.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"')
+				buffer.append("\"\"");
+			else if (c != '\0')
+				buffer.append(c);
+		}
+		return buffer.append('"');
+	}
+
+	/**
+	 * Get the JDBC connection of the transaction
+	 * @param trxName
+	 * @return connection or null
+	 */
+	private static Connection getConnection(String trxName) {
+		Trx trx = Trx.get(trxName, false);
+		return trx != null ? trx.getConnection() : null;
+	}
+}
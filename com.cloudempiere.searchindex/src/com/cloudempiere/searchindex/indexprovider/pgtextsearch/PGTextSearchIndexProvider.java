@@ -25,31 +25,42 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.text.Normalizer;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
+import org.adempiere.exceptions.DBException;
 import org.adempiere.util.IProcessUI;
 import org.compiere.model.MClient;
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CCache;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 import org.compiere.util.Util;
 
 import com.cloudempiere.searchindex.indexprovider.ISearchIndexProvider;
+import com.cloudempiere.searchindex.model.MSearchIndex;
 import com.cloudempiere.searchindex.model.MSearchIndexProvider;
 import com.cloudempiere.searchindex.util.ISearchResult;
+import com.cloudempiere.searchindex.util.SearchIndexKeyFilter;
 import com.cloudempiere.searchindex.util.SearchIndexSecurityValidator;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexColumnData;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexSourceQuery;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
 
 /**
@@ -76,7 +87,36 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
     protected static final String OPERATOR_NOT = "!";
     protected static final String OPERATOR_FOLLOWED_BY = "<->";
 
-	private HashMap<Integer, String> indexQuery = new HashMap<>();
+    /** Number of upserts sent to the database in one JDBC batch */
+    public static final String SYSCONFIG_BATCH_SIZE = "SEARCH_INDEX_BATCH_SIZE";
+    /** Default JDBC batch size */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    /** Rebuild indexes in a shadow table swapped in at the end of the rebuild */
+    public static final String SYSCONFIG_SHADOW_REBUILD = "SEARCH_INDEX_SHADOW_REBUILD";
+
+    /** Content hash column of the index tables, rows with an unchanged hash are not rewritten */
+    static final String CONTENT_HASH_COLUMN = "idx_hash";
+
+    /* Text format of timestamp values, the fraction is appended as PostgreSQL does */
+    private static final DateTimeFormatter TIMESTAMP_TEXT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /* Special characters of normalizeDocumentContent as regular expression bracket (] first, - last), quotes escaped for SQL */
+    private static final String NORMALIZE_SPECIAL_CHARS_REGEX = "([]@.,:;/\\\\(){}[<>_+=*&^%$#!?|~`\"''-])";
+    /* Whitespace collapsed by the normalization in PostgreSQL regular expressions */
+    private static final String NORMALIZE_WHITESPACE_REGEX = "[ \\t\\n\\r\\f\\v]+";
+    /* The same whitespace in Java regular expressions, \v is a vertical whitespace class in Java */
+    private static final String NORMALIZE_WHITESPACE_JAVA_REGEX = "[ \\t\\n\\r\\f\\x0B]+";
+
+	private Map<Integer, String> indexQuery = new ConcurrentHashMap<>();
+	/* Running shadow rebuilds, key is trxName|tableName */
+	private Map<String, PGTextSearchShadowTable> shadowTables = new ConcurrentHashMap<>();
+	/* Index tables with the content hash column, lower case table name, reset with the search index cache */
+	private static final CCache<String, Boolean> contentHashTables = new CCache<>(MSearchIndex.Table_Name, "PGTextSearchContentHash", 20, 60, false);
+	/* Index rows written by this instance */
+	private final AtomicInteger writtenCount = new AtomicInteger();
+	/* Index rows not rewritten by this instance, content unchanged */
+	private final AtomicInteger skippedCount = new AtomicInteger();
+	/* Resolved text search configuration, key is AD_Client_ID */
+	private final Map<Integer, String> tsConfigByClient = new ConcurrentHashMap<>();
 	private MSearchIndexProvider searchIndexProvider;
 	private IProcessUI processUI;
 	
@@ -92,38 +132,207 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
 	        return;
 	    }
 	    String tsConfig = getTSConfig(ctx, trxName);
+	    int clientId = Env.getAD_Client_ID(ctx);
+	    int batchSize = MSysConfig.getIntValue(SYSCONFIG_BATCH_SIZE, DEFAULT_BATCH_SIZE, clientId);
+	    if (batchSize <= 0)
+	    	batchSize = DEFAULT_BATCH_SIZE;
+
+	    long startTime = System.currentTimeMillis();
+	    int count = 0;
 	    for (Map.Entry<Integer, Set<SearchIndexTableData>> searchIndexRecordSet : indexRecordsMap.entrySet()) {
             for (SearchIndexTableData searchIndexRecord : searchIndexRecordSet.getValue()) {
-                String tableName = searchIndexRecord.getSearchIndexName();
+                String tableName = getWriteTableName(searchIndexRecord.getSearchIndexName(), trxName);
+                boolean isContentHash = isContentHash(searchIndexRecord.getSearchIndexName(), trxName);
+                int size = searchIndexRecord.getColumnData().size();
 
+                // rows of one table share the statement, one entry per distinct column layout
+                Map<String, PreparedStatement> upsertStatements = new HashMap<>();
+                String sql = null;
                 int i = 0;
-                for (Map<String, SearchIndexColumnData> tableDataSet : searchIndexRecord.getColumnData()) {
-                    if (tableDataSet.get("Record_ID") == null)
-                        continue;
-
-                    updateProcessUIStatus("Preparing " + tableName + "(" + i + "/" + searchIndexRecord.getColumnData().size() + ")"); // TODO translate
-
-                    List<Object> params = new ArrayList<>();
-                    params.add(Env.getAD_Client_ID(ctx));
-                    params.add(searchIndexRecord.getTableId());
-                    params.add(Integer.parseInt(tableDataSet.get("Record_ID").getValue().toString()));
-
-                    String documentContent = documentContentToTsvector(tableDataSet, tsConfig, params);
-
-                    StringBuilder upsertQuery = new StringBuilder();
-                    upsertQuery.append("INSERT INTO ").append(tableName).append(" ")
-                               .append("(ad_client_id, ad_table_id, record_id, idx_tsvector) VALUES (?, ?, ?, ")
-                               .append(documentContent).append(") ")
-                               // Fix ADR-006: Include ad_client_id in UNIQUE constraint to prevent multi-tenant data corruption
-                               .append("ON CONFLICT (ad_client_id, ad_table_id, record_id) DO UPDATE SET ")
-                               .append("idx_tsvector = EXCLUDED.idx_tsvector");
-                    DB.executeUpdateEx(upsertQuery.toString(), params.toArray(), trxName);
-                    i++;
+                int pending = 0;
+                try {
+                	for (Map<String, SearchIndexColumnData> tableDataSet : searchIndexRecord.getColumnData()) {
+                		if (tableDataSet.get("Record_ID") == null)
+                			continue;
+
+                		List<Object> params = new ArrayList<>();
+                		params.add(clientId);
+                		params.add(searchIndexRecord.getTableId());
+                		params.add(Integer.parseInt(tableDataSet.get("Record_ID").getValue().toString()));
+
+                		String documentContent = documentContentToTsvector(tableDataSet, tsConfig, params);
+                		sql = getUpsertSQL(tableName, documentContent, isContentHash);
+
+                		PreparedStatement pstmt = upsertStatements.get(sql);
+                		if (pstmt == null) {
+                			pstmt = DB.prepareStatement(sql, trxName);
+                			upsertStatements.put(sql, pstmt);
+                		}
+                		for (int p = 0; p < params.size(); p++) {
+                			pstmt.setObject(p + 1, params.get(p));
+                		}
+                		pstmt.addBatch();
+                		i++;
+
+                		if (++pending >= batchSize) {
+                			addWritten(pending, executeBatch(upsertStatements.values()));
+                			count += pending;
+                			pending = 0;
+                			updateProcessUIStatus("Indexing " + tableName + " (" + i + "/" + size + ") " + getRowsPerSecond(count, startTime) + " rows/s"); // TODO translate
+                		}
+                	}
+                	if (pending > 0) {
+                		addWritten(pending, executeBatch(upsertStatements.values()));
+                		count += pending;
+                	}
+                	putIndexedKeys(clientId, searchIndexRecord, trxName);
+                } catch (SQLException e) {
+                	throw new DBException(e, sql);
+                } finally {
+                	for (PreparedStatement pstmt : upsertStatements.values()) {
+                		DB.close(pstmt);
+                	}
                 }
             }
         }
 
-        updateProcessUIStatus("Inserting data..."); // TODO translate
+	    long rowsPerSecond = getRowsPerSecond(count, startTime);
+	    if (log.isLoggable(Level.INFO))
+	    	log.info("Indexed " + count + " records in " + (System.currentTimeMillis() - startTime) + " ms (" + rowsPerSecond + " rows/s, batch size " + batchSize
+	    			+ ", written " + writtenCount + ", unchanged " + skippedCount + " in total)");
+        updateProcessUIStatus("Indexed " + count + " records (" + rowsPerSecond + " rows/s)"); // TODO translate
+	}
+
+	/**
+	 * Add the written records to the Bloom filter of the index table when the transaction commits
+	 * @param clientId - AD_Client_ID
+	 * @param searchIndexRecord - written records
+	 * @param trxName
+	 */
+	private void putIndexedKeys(int clientId, SearchIndexTableData searchIndexRecord, String trxName) {
+		for (Map<String, SearchIndexColumnData> tableDataSet : searchIndexRecord.getColumnData()) {
+			if (tableDataSet.get("Record_ID") != null)
+				SearchIndexKeyFilter.put(searchIndexRecord.getSearchIndexName(), clientId, searchIndexRecord.getTableId(),
+						Integer.parseInt(tableDataSet.get("Record_ID").getValue().toString()), trxName);
+		}
+	}
+
+	/**
+	 * Get the upsert statement for one index record
+	 * @param tableName - search index table
+	 * @param documentContent - tsvector expression, see {@link #documentContentToTsvector(Map, String, List)}
+	 * @param isContentHash - store the content hash and skip unchanged rows
+	 * @return INSERT ... ON CONFLICT statement
+	 */
+	private String getUpsertSQL(String tableName, String documentContent, boolean isContentHash) {
+		StringBuilder upsertQuery = new StringBuilder();
+		if (isContentHash) {
+			// the tsvector is built once and hashed in the sub query
+			upsertQuery.append("INSERT INTO ").append(tableName).append(" AS idx ")
+			           .append("(ad_client_id, ad_table_id, record_id, idx_tsvector, ").append(CONTENT_HASH_COLUMN).append(") ")
+			           .append("SELECT ?, ?, ?, doc.idx_tsvector, ").append(getContentHashSQL("doc.idx_tsvector"))
+			           .append(" FROM (SELECT ").append(documentContent).append(" AS idx_tsvector) doc");
+		} else {
+			upsertQuery.append("INSERT INTO ").append(tableName).append(" ")
+			           .append("(ad_client_id, ad_table_id, record_id, idx_tsvector) VALUES (?, ?, ?, ")
+			           .append(documentContent).append(")");
+		}
+		// Fix ADR-006: Include ad_client_id in UNIQUE constraint to prevent multi-tenant data corruption
+		upsertQuery.append(getConflictClause(isContentHash));
+		return upsertQuery.toString();
+	}
+
+	/**
+	 * Get the ON CONFLICT clause of the upserts into an index table (aliased idx when the content hash is used)
+	 * @param isContentHash - rows with an unchanged content hash are not updated
+	 * @return ON CONFLICT ... DO UPDATE clause
+	 */
+	static String getConflictClause(boolean isContentHash) {
+		StringBuilder conflictClause = new StringBuilder(" ON CONFLICT (ad_client_id, ad_table_id, record_id) DO UPDATE SET ")
+				.append("idx_tsvector = EXCLUDED.idx_tsvector");
+		if (isContentHash) {
+			conflictClause.append(", ").append(CONTENT_HASH_COLUMN).append(" = EXCLUDED.").append(CONTENT_HASH_COLUMN)
+				.append(" WHERE idx.").append(CONTENT_HASH_COLUMN).append(" IS DISTINCT FROM EXCLUDED.").append(CONTENT_HASH_COLUMN);
+		}
+		return conflictClause.toString();
+	}
+
+	/**
+	 * Get the content hash expression of a tsvector, the same for all write paths
+	 * @param tsvector - tsvector expression
+	 * @return uuid expression
+	 */
+	static String getContentHashSQL(String tsvector) {
+		return "md5(" + tsvector + "::text)::uuid";
+	}
+
+	/**
+	 * Check if an index table stores the content hash (migration 202610161500_SearchIndexContentHash.sql),
+	 * the result is cached for tables with and without the column
+	 * @param tableName - search index table
+	 * @param trxName
+	 * @return true if the content hash column exists
+	 */
+	boolean isContentHash(String tableName, String trxName) {
+		String key = tableName.toLowerCase();
+		Boolean isContentHash = contentHashTables.get(key);
+		if (isContentHash != null)
+			return isContentHash;
+		int count = DB.getSQLValue(trxName, "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema=current_schema() AND table_name=? AND column_name=?", key, CONTENT_HASH_COLUMN);
+		isContentHash = count > 0;
+		if (!isContentHash && log.isLoggable(Level.INFO))
+			log.info(tableName + " has no " + CONTENT_HASH_COLUMN + " column, unchanged rows are rewritten");
+		contentHashTables.put(key, isContentHash);
+		return isContentHash;
+	}
+
+	/**
+	 * Execute the pending batches of the statements
+	 * @param statements
+	 * @return number of written rows
+	 * @throws SQLException
+	 */
+	private int executeBatch(Collection<PreparedStatement> statements) throws SQLException {
+		int written = 0;
+		for (PreparedStatement pstmt : statements) {
+			for (int updateCount : pstmt.executeBatch()) {
+				// a row skipped by the content hash reports 0
+				if (updateCount != 0)
+					written++;
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * Count written and skipped rows
+	 * @param processed - number of processed records
+	 * @param written - number of written rows
+	 */
+	void addWritten(int processed, int written) {
+		writtenCount.addAndGet(written);
+		skippedCount.addAndGet(Math.max(0, processed - written));
+	}
+
+	@Override
+	public int getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	@Override
+	public int getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	/**
+	 * Get the write throughput
+	 * @param count - number of written rows
+	 * @param startTime - start time in ms
+	 * @return rows per second
+	 */
+	private long getRowsPerSecond(int count, long startTime) {
+		long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+		return count * 1000L / elapsed;
 	}
 	
 	@Override
@@ -189,7 +398,44 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
     		DB.executeUpdateEx(sql, params.toArray(), trxName);
     	}
     }
+
+	/**
+	 * The key query is built from the search index configuration, it is not a user supplied
+	 * where clause and is not passed through the where clause validation.
+	 * The anti-join (NOT EXISTS) lets PostgreSQL hash the keys instead of scanning a NOT IN list.
+	 */
+	@Override
+	public void deleteIndexNotInKeys(Properties ctx, String searchIndexName, int tableId, int fromKey, int toKey, String keyQuery, Object[] keyParams, String trxName) {
+		// Validate table name to prevent SQL injection
+		String safeSearchIndexName = SearchIndexSecurityValidator.validateTableName(searchIndexName, trxName);
+		StringBuilder sql = new StringBuilder("DELETE FROM ").append(safeSearchIndexName).append(" idx WHERE idx.AD_Client_ID IN (0,?) AND idx.AD_Table_ID=? ");
+		List<Object> params = new ArrayList<>();
+		params.add(Env.getAD_Client_ID(ctx));
+		params.add(tableId);
+		if (fromKey > 0) {
+			sql.append("AND idx.Record_ID>=? ");
+			params.add(fromKey);
+		}
+		if (toKey > 0) {
+			sql.append("AND idx.Record_ID<? ");
+			params.add(toKey);
+		}
+		sql.append("AND NOT EXISTS (SELECT 1 FROM (").append(keyQuery).append(") k (Record_ID) WHERE k.Record_ID = idx.Record_ID)");
+		if (keyParams != null) {
+			for (Object param : keyParams) {
+				params.add(param);
+			}
+		}
+		int deleted = DB.executeUpdateEx(sql.toString(), params.toArray(), trxName);
+		if (log.isLoggable(Level.FINE))
+			log.fine("Deleted " + deleted + " records of AD_Table_ID=" + tableId + " from " + safeSearchIndexName);
+	}
 	
+	/**
+	 * With SEARCH_INDEX_SHADOW_REBUILD all swapped tables stay locked until the caller commits,
+	 * callers rebuilding large indexes use {@link #beginRebuild(Properties, String, String)} and
+	 * {@link #endRebuild(Properties, String, String)} and commit after every swap.
+	 */
 	@Override
 	public void reCreateIndex(Properties ctx, Map<Integer, Set<SearchIndexTableData>> indexRecordsMap, String trxName) {
 		Set<String> searchIndexNames = new HashSet<>();
@@ -199,9 +445,228 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
 			}
 		}
 		for (String searchIndexName : searchIndexNames) {
+			beginRebuild(ctx, searchIndexName, trxName);
+		}
+		if (MSysConfig.getBooleanValue(SYSCONFIG_BULK_LOAD, false, Env.getAD_Client_ID(ctx)))
+			bulkLoadIndex(ctx, indexRecordsMap, trxName);
+		else
+			createIndex(ctx, indexRecordsMap, trxName);
+		for (String searchIndexName : searchIndexNames) {
+			endRebuild(ctx, searchIndexName, trxName);
+		}
+	}
+
+	/**
+	 * With SEARCH_INDEX_SHADOW_REBUILD the records are loaded into a shadow table
+	 * swapped in by {@link #endRebuild(Properties, String, String)}, otherwise the
+	 * current content of the client is deleted.
+	 */
+	@Override
+	public void beginRebuild(Properties ctx, String searchIndexName, String trxName) {
+		if (trxName == null || !MSysConfig.getBooleanValue(SYSCONFIG_SHADOW_REBUILD, false, Env.getAD_Client_ID(ctx))) {
 			deleteIndex(ctx, searchIndexName, trxName);
+			return;
 		}
-		createIndex(ctx, indexRecordsMap, trxName);
+		// Validate table name to prevent SQL injection
+		String safeTableName = SearchIndexSecurityValidator.validateTableName(searchIndexName, trxName);
+		PGTextSearchShadowTable shadowTable = new PGTextSearchShadowTable(safeTableName, Env.getAD_Client_ID(ctx), trxName);
+		updateProcessUIStatus("Creating " + shadowTable.getShadowTableName() + "..."); // TODO translate
+		shadowTable.create();
+		shadowTables.put(getRebuildKey(safeTableName, trxName), shadowTable);
+	}
+
+	/**
+	 * The indexes of all shadow tables of the transaction are built before the first swap,
+	 * the swap locks the live table until the caller commits.
+	 */
+	@Override
+	public void endRebuild(Properties ctx, String searchIndexName, String trxName) {
+		if (trxName == null)
+			return;
+		PGTextSearchShadowTable shadowTable = shadowTables.remove(getRebuildKey(searchIndexName, trxName));
+		if (shadowTable != null) {
+			String trxPrefix = getRebuildKey("", trxName);
+			for (Map.Entry<String, PGTextSearchShadowTable> pending : shadowTables.entrySet()) {
+				if (pending.getKey().startsWith(trxPrefix)) {
+					updateProcessUIStatus("Indexing " + pending.getValue().getShadowTableName() + "..."); // TODO translate
+					pending.getValue().buildIndexes();
+				}
+			}
+			updateProcessUIStatus("Swapping " + searchIndexName + "..."); // TODO translate
+			shadowTable.swap();
+		}
+	}
+
+	/**
+	 * Get the table the records of an index are written to,
+	 * the shadow table while a shadow rebuild of the index runs in the transaction
+	 * @param tableName - search index table
+	 * @param trxName
+	 * @return table name
+	 */
+	private String getWriteTableName(String tableName, String trxName) {
+		if (trxName == null || shadowTables.isEmpty())
+			return tableName;
+		PGTextSearchShadowTable shadowTable = shadowTables.get(getRebuildKey(tableName, trxName));
+		return shadowTable != null ? shadowTable.getShadowTableName() : tableName;
+	}
+
+	/**
+	 * Get the key of a running rebuild
+	 * @param tableName
+	 * @param trxName
+	 * @return key
+	 */
+	private String getRebuildKey(String tableName, String trxName) {
+		return trxName + "|" + tableName.toLowerCase();
+	}
+
+	/**
+	 * Load records with COPY into the staging table and build the tsvectors
+	 * with one set-based statement per index table.
+	 * Falls back to {@link #createIndex(Properties, Map, String)} when the
+	 * staging objects are missing or the connection does not support COPY.
+	 */
+	@Override
+	public void bulkLoadIndex(Properties ctx, Map<Integer, Set<SearchIndexTableData>> indexRecordsMap, String trxName) {
+		if (indexRecordsMap == null) {
+			return;
+		}
+		if (!PGTextSearchBulkLoader.isAvailable(trxName)) {
+			createIndex(ctx, indexRecordsMap, trxName);
+			return;
+		}
+
+		int clientId = Env.getAD_Client_ID(ctx);
+		PGTextSearchBulkLoader loader = new PGTextSearchBulkLoader(this, getTSConfig(ctx, trxName), trxName);
+		long startTime = System.currentTimeMillis();
+		int count = 0;
+		for (Map.Entry<Integer, Set<SearchIndexTableData>> searchIndexRecordSet : indexRecordsMap.entrySet()) {
+			for (SearchIndexTableData searchIndexRecord : searchIndexRecordSet.getValue()) {
+				// Validate table name to prevent SQL injection
+				String safeTableName = SearchIndexSecurityValidator.validateTableName(searchIndexRecord.getSearchIndexName(), trxName);
+				updateProcessUIStatus("Loading " + safeTableName + " (" + searchIndexRecord.getColumnData().size() + ")"); // TODO translate
+				try {
+					int written = loader.load(clientId, searchIndexRecord, getWriteTableName(safeTableName, trxName), isContentHash(safeTableName, trxName));
+					int processed = (int) searchIndexRecord.getColumnData().stream().filter(tableDataSet -> tableDataSet.get("Record_ID") != null).count();
+					addWritten(processed, written);
+					count += processed;
+					putIndexedKeys(clientId, searchIndexRecord, trxName);
+				} catch (SQLException e) {
+					throw new DBException(e);
+				}
+			}
+		}
+
+		long rowsPerSecond = getRowsPerSecond(count, startTime);
+		if (log.isLoggable(Level.INFO))
+			log.info("Bulk loaded " + count + " records in " + (System.currentTimeMillis() - startTime) + " ms (" + rowsPerSecond + " rows/s)");
+		updateProcessUIStatus("Indexed " + count + " records (" + rowsPerSecond + " rows/s)"); // TODO translate
+	}
+
+	@Override
+	public boolean isSourceIndexSupported() {
+		return true;
+	}
+
+	/**
+	 * Compiles the source query to INSERT INTO index SELECT ... FROM main LEFT JOIN ... WHERE ...,
+	 * the tsvector of every record is built by PostgreSQL. The normalization of
+	 * {@link #normalizeDocumentContent(Object)} is reproduced with regexp_replace.
+	 */
+	@Override
+	public int indexFromSource(Properties ctx, SearchIndexSourceQuery sourceQuery, String trxName) {
+		// Validate table name to prevent SQL injection
+		String safeTableName = SearchIndexSecurityValidator.validateTableName(sourceQuery.getSearchIndexName(), trxName);
+		String tsConfig = getTSConfig(ctx, trxName);
+		BigDecimal maxSearchWeight = sourceQuery.getTableConfig().getMaxSearchWeight();
+
+		StringBuilder documentContent = new StringBuilder();
+		appendColumnTsvector(documentContent, sourceQuery.getKeyColumnSQL(), getTSWeight(Env.ONE, maxSearchWeight), tsConfig);
+		for (Map.Entry<String, BigDecimal> column : sourceQuery.getColumnWeights().entrySet()) {
+			documentContent.append(" || ");
+			appendColumnTsvector(documentContent, column.getKey(), getTSWeight(column.getValue(), maxSearchWeight), tsConfig);
+		}
+
+		List<Object> params = new ArrayList<>();
+		params.add(Env.getAD_Client_ID(ctx));
+		params.add(sourceQuery.getTableConfig().getTableId());
+		params.addAll(sourceQuery.getParams());
+
+		updateProcessUIStatus("Indexing " + sourceQuery.getTableConfig().getTableName() + "..."); // TODO translate
+		long startTime = System.currentTimeMillis();
+		int count;
+		int written;
+		StringBuilder sql = new StringBuilder();
+		if (isContentHash(safeTableName, trxName)) {
+			// the data modifying CTE returns the written rows only, the source is counted separately
+			sql.append("WITH doc AS (SELECT ?::numeric AS ad_client_id, ?::numeric AS ad_table_id, ").append(sourceQuery.getKeyColumnSQL()).append(" AS record_id, ")
+			   .append(documentContent).append(" AS idx_tsvector")
+			   .append(sourceQuery.getFromClause())
+			   .append(sourceQuery.getWhereClause()).append("), ")
+			   .append("upsert AS (INSERT INTO ").append(getWriteTableName(safeTableName, trxName)).append(" AS idx ")
+			   .append("(ad_client_id, ad_table_id, record_id, idx_tsvector, ").append(CONTENT_HASH_COLUMN).append(") ")
+			   .append("SELECT ad_client_id, ad_table_id, record_id, idx_tsvector, ").append(getContentHashSQL("idx_tsvector")).append(" FROM doc")
+			   // Fix ADR-006: Include ad_client_id in UNIQUE constraint to prevent multi-tenant data corruption
+			   .append(getConflictClause(true))
+			   .append(" RETURNING 1) ")
+			   .append("SELECT (SELECT COUNT(*) FROM doc), (SELECT COUNT(*) FROM upsert)");
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try {
+				pstmt = DB.prepareStatement(sql.toString(), trxName);
+				for (int i = 0; i < params.size(); i++) {
+					pstmt.setObject(i + 1, params.get(i));
+				}
+				rs = pstmt.executeQuery();
+				rs.next();
+				count = rs.getInt(1);
+				written = rs.getInt(2);
+			} catch (SQLException e) {
+				throw new DBException(e, sql.toString());
+			} finally {
+				DB.close(rs, pstmt);
+			}
+		} else {
+			sql.append("INSERT INTO ").append(getWriteTableName(safeTableName, trxName)).append(" (ad_client_id, ad_table_id, record_id, idx_tsvector) ")
+			   .append("SELECT ?, ?, ").append(sourceQuery.getKeyColumnSQL()).append(", ").append(documentContent)
+			   .append(sourceQuery.getFromClause())
+			   .append(sourceQuery.getWhereClause())
+			   // Fix ADR-006: Include ad_client_id in UNIQUE constraint to prevent multi-tenant data corruption
+			   .append(getConflictClause(false));
+			count = DB.executeUpdateEx(sql.toString(), params.toArray(), trxName);
+			written = count;
+		}
+		addWritten(count, written);
+		// the keys are not read back, the Bloom filter is rebuilt
+		SearchIndexKeyFilter.invalidate(safeTableName, trxName);
+		if (log.isLoggable(Level.INFO))
+			log.info("Indexed " + count + " records of " + sourceQuery.getTableConfig().getTableName() + " into " + safeTableName
+					+ " in " + (System.currentTimeMillis() - startTime) + " ms (" + getRowsPerSecond(count, startTime) + " rows/s, written " + written + ", unchanged " + (count - written) + ")");
+		return count;
+	}
+
+	/**
+	 * Append the weighted tsvector expression of a column,
+	 * SQL counterpart of {@link #documentContentToTsvector(Map, String, List)}
+	 * @param documentContent
+	 * @param columnSQL - column expression
+	 * @param tsWeight
+	 * @param tsConfig
+	 */
+	private void appendColumnTsvector(StringBuilder documentContent, String columnSQL, String tsWeight, String tsConfig) {
+		String value = "COALESCE(" + columnSQL + "::text, '')";
+		documentContent.append("setweight(to_tsvector('simple'::regconfig, ").append(value).append("), '").append(tsWeight).append("') || ")
+			.append("setweight(to_tsvector('").append(tsConfig).append("'::regconfig, ").append(getNormalizeSQL(value)).append("), '").append(tsWeight).append("')");
+	}
+
+	/**
+	 * SQL counterpart of {@link #normalizeDocumentContent(Object)}
+	 * @param value - text expression
+	 * @return normalized text expression
+	 */
+	public static String getNormalizeSQL(String value) {
+		return value + " || ' ' || btrim(regexp_replace(regexp_replace(" + value + ", '" + NORMALIZE_SPECIAL_CHARS_REGEX + "', ' \\1 ', 'g'), '" + NORMALIZE_WHITESPACE_REGEX + "', ' ', 'g'), ' ')";
 	}
 
     @Override
@@ -474,7 +939,7 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
         	SearchIndexColumnData columnData = entry.getValue();
             if (columnData != null) {
             	String tsWeight = getTSWeight(columnData.getSearchWeight(), columnData.getMaxSearchWeight());
-                String value = Objects.toString(columnData.getValue(), "");
+                String value = toDocumentText(columnData.getValue());
 
                 // Add original text with calculated weight based on SearchWeight
                 documentContent.append("setweight(")
@@ -526,8 +991,8 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
      *    params.add(value);
      *    params.add(value);
      */
-	private String normalizeDocumentContent(Object documentContent) {
-		String strContent = Objects.toString(documentContent, "");
+	public static String normalizeDocumentContent(Object documentContent) {
+		String strContent = toDocumentText(documentContent);
 		
 		// Keep original content for exact matches
 		String originalContent = strContent;
@@ -548,19 +1013,59 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
 			}
 		}
 		
-		// Replace multiple spaces with a single space
-		String normalized = normalizedContent.toString().replaceAll("\\s+", " ").trim();
+		// Replace multiple spaces with a single space, strip spaces only (as btrim does, trim() would strip control characters too)
+		String normalized = normalizedContent.toString().replaceAll(NORMALIZE_WHITESPACE_JAVA_REGEX, " ");
+		int start = 0;
+		int end = normalized.length();
+		while (start < end && normalized.charAt(start) == ' ')
+			start++;
+		while (end > start && normalized.charAt(end - 1) == ' ')
+			end--;
+		normalized = normalized.substring(start, end);
 
 		// Combine original and normalized versions to support both exact and partial matches
 		return originalContent + " " + normalized;
 	}
 
+	/**
+	 * Converts a column value to the text indexed by the event and bulk paths.
+	 * Values are formatted as PostgreSQL casts them to text (ISO DateStyle),
+	 * so the Java paths index the same document as the set-based SQL path.
+	 * NUL characters are removed, PostgreSQL text cannot hold them.
+	 * @param value column value
+	 * @return text of the value, empty string for null
+	 */
+	public static String toDocumentText(Object value) {
+		if (value == null)
+			return "";
+		String text;
+		if (value instanceof Timestamp) {
+			Timestamp ts = (Timestamp) value;
+			text = TIMESTAMP_TEXT_FORMAT.format(ts.toLocalDateTime());
+			int micros = ts.getNanos() / 1000;
+			if (micros > 0) {
+				String fraction = String.format("%06d", micros);
+				int len = fraction.length();
+				while (fraction.charAt(len - 1) == '0')
+					len--;
+				text = text + "." + fraction.substring(0, len);
+			}
+		} else if (value instanceof BigDecimal) {
+			text = ((BigDecimal) value).toPlainString();
+		} else if (value instanceof Double || value instanceof Float) {
+			text = new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+		} else {
+			text = value.toString();
+		}
+		return text.indexOf('\0') >= 0 ? text.replace("\0", "") : text;
+	}
+
 	/**
      * Gets the weight for the given search weight.
      * @param searchWeight the search weight
      * @return weight
      */
-    private String getTSWeight(BigDecimal searchWeight, BigDecimal maxSearchWeight) {
+    String getTSWeight(BigDecimal searchWeight, BigDecimal maxSearchWeight) {
     	// For negative values return the lowest weight
         if (searchWeight.compareTo(BigDecimal.ZERO) < 0) {
             return WEIGHT_THRESHOLDS.get(BigDecimal.ZERO);
@@ -571,10 +1076,24 @@ public class PGTextSearchIndexProvider implements ISearchIndexProvider {
     }
     
     /**
-	 * Gets the text search configuration to use. 
+	 * Gets the text search configuration to use, resolved once per client.
 	 * @return the text search configuration
 	 */
     private String getTSConfig(Properties ctx, String trxName) {
+    	int clientId = Env.getAD_Client_ID(ctx);
+    	String tsConfig = tsConfigByClient.get(clientId);
+    	if (tsConfig == null) {
+    		tsConfig = resolveTSConfig(ctx, trxName);
+    		tsConfigByClient.put(clientId, tsConfig);
+    	}
+    	return tsConfig;
+    }
+
+    /**
+	 * Resolves the text search configuration of the client language from the catalog.
+	 * @return the text search configuration
+	 */
+    private String resolveTSConfig(Properties ctx, String trxName) {
 		// Fix ADR-005: Add Slovak/Czech language support
 		String languageCode = MClient.get(ctx).getLanguage().getAD_Language();
 		String checkConfigQuery = "SELECT COUNT(*) FROM pg_ts_config WHERE cfgname = ?";
@@ -0,0 +1,275 @@
+/**********************************************************************
+ * Copyright (C) Contributors                                          *
+ *                                                                     *
+ * This program is free software; you can redistribute it and/or       *
+ * modify it under the terms of the GNU General Public License         *
+ * as published by the Free Software Foundation; either version 2      *
+ * of the License, or (at your option) any later version.              *
+ *                                                                     *
+ * This program is distributed in the hope that it will be useful,     *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+ * GNU General Public License for more details.                        *
+ *                                                                     *
+ * You should have received a copy of the GNU General Public License   *
+ * along with this program; if not, write to the Free Software         *
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+ * MA 02110-1301, USA.                                                 *
+ *                                                                     *
+ * Contributors:                                                       *
+ * - Peter Takacs, Cloudempiere                                        *
+ **********************************************************************/
+package com.cloudempiere.searchindex.indexprovider.pgtextsearch;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.adempiere.exceptions.DBException;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+
+/**
+ *
+ * Shadow table of a PostgreSQL Text Search index used for blue/green rebuilds.<br>
+ * The shadow is created with the columns, the unique constraints and the unique indexes
+ * of the live table (needed by the upserts) and the rows of the other clients, it is loaded,
+ * then the remaining indexes (GIN) are built and the shadow replaces the live table by rename.<br>
+ * Rows written to the live table by other transactions while the rebuild runs are merged
+ * into the shadow before the swap, the row versions (xmin) at the start of the rebuild
+ * identify them.<br>
+ * The live table is locked from the swap until the rebuild transaction commits, the caller
+ * commits after every swap. Searches keep reading the live table until then.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+class PGTextSearchShadowTable {
+
+	/** Logger */
+	private static final CLogger log = CLogger.getCLogger(PGTextSearchShadowTable.class);
+
+	/** Max length of a PostgreSQL identifier */
+	private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+	/** Live table */
+	private final String tableName;
+	/** AD_Client_ID of the rebuilt rows */
+	private final int clientId;
+	/** Suffix of the objects of this rebuild, unique among concurrent rebuilds */
+	private final String runSuffix;
+	/** Shadow table */
+	private final String shadowTableName;
+	/** Temporary table with the row versions of the live table at the start of the rebuild */
+	private final String versionTableName;
+	/** Transaction */
+	private final String trxName;
+	/** Indexes of the live table not needed by the upserts built on the shadow */
+	private boolean isIndexed = false;
+
+	/**
+	 * @param tableName - validated search index table
+	 * @param clientId - AD_Client_ID of the rebuilt rows
+	 * @param trxName
+	 */
+	PGTextSearchShadowTable(String tableName, int clientId, String trxName) {
+		this.tableName = tableName.toLowerCase();
+		this.clientId = clientId;
+		this.trxName = trxName;
+		// the backend pid is unique among the running sessions
+		this.runSuffix = "_" + clientId + "_" + DB.getSQLValueEx(trxName, "SELECT pg_backend_pid()");
+		this.shadowTableName = getTempName(this.tableName, "_sh" + runSuffix);
+		this.versionTableName = getTempName(this.tableName, "_ver");
+	}
+
+	/**
+	 * Get the shadow table name, records of the rebuild are written there
+	 * @return shadow table name
+	 */
+	String getShadowTableName() {
+		return shadowTableName;
+	}
+
+	/**
+	 * Create the shadow table with the columns, defaults, unique constraints and unique indexes
+	 * of the live table, remember the row versions of the live table and carry over the rows of the other clients
+	 */
+	void create() {
+		DB.executeUpdateEx("DROP TABLE IF EXISTS " + shadowTableName, trxName);
+		DB.executeUpdateEx("CREATE TABLE " + shadowTableName + " (LIKE " + tableName + " INCLUDING DEFAULTS)", trxName);
+		// unique constraints and indexes are needed by INSERT ... ON CONFLICT, other indexes are built after the load
+		for (Map.Entry<String, String> constraint : getConstraints().entrySet()) {
+			DB.executeUpdateEx("ALTER TABLE " + shadowTableName + " ADD CONSTRAINT " + getShadowName(constraint.getKey()) + " " + constraint.getValue(), trxName);
+		}
+		for (Map.Entry<String, String> index : getIndexes(true).entrySet()) {
+			DB.executeUpdateEx(getShadowIndexDDL(index.getKey(), index.getValue()), trxName);
+		}
+		// the session keeps the versions over the commits of the swaps of other indexes, dropped by the swap
+		DB.executeUpdateEx("DROP TABLE IF EXISTS " + versionTableName, trxName);
+		DB.executeUpdateEx("CREATE TEMPORARY TABLE " + versionTableName + " AS "
+				+ "SELECT ad_client_id, ad_table_id, record_id, xmin AS row_xmin FROM " + tableName, trxName);
+		// rows of other clients changed from now on are merged by the swap
+		DB.executeUpdateEx("INSERT INTO " + shadowTableName + " SELECT * FROM " + tableName + " WHERE AD_Client_ID NOT IN (0,?)", new Object[] {clientId}, trxName);
+	}
+
+	/**
+	 * Build the remaining indexes of the live table (e.g. GIN) on the loaded shadow table and analyze it,
+	 * called for all shadow tables of a rebuild before the first swap locks a live table
+	 */
+	void buildIndexes() {
+		if (isIndexed)
+			return;
+		long startTime = System.currentTimeMillis();
+		for (Map.Entry<String, String> index : getIndexes(false).entrySet()) {
+			DB.executeUpdateEx(getShadowIndexDDL(index.getKey(), index.getValue()), trxName);
+		}
+		DB.executeUpdateEx("ANALYZE " + shadowTableName, trxName);
+		isIndexed = true;
+		if (log.isLoggable(Level.INFO))
+			log.info("Indexed " + shadowTableName + " in " + (System.currentTimeMillis() - startTime) + " ms");
+	}
+
+	/**
+	 * Replace the live table with the loaded shadow table.
+	 * The remaining indexes are built first if not done by {@link #buildIndexes()}, then the live table
+	 * is locked against writes until the end of the transaction and the rows changed since {@link #create()}
+	 * are merged. The caller commits right after the swap.
+	 */
+	void swap() {
+		buildIndexes();
+		long startTime = System.currentTimeMillis();
+		Map<String, String> constraints = getConstraints();
+		Map<String, String> uniqueIndexes = getIndexes(true);
+		Map<String, String> indexes = getIndexes(false);
+
+		DB.executeUpdateEx("LOCK TABLE " + tableName + " IN EXCLUSIVE MODE", trxName);
+		long lockTime = System.currentTimeMillis();
+		int merged = mergeChanges();
+
+		String oldTableName = getTempName(tableName, "_old" + runSuffix);
+		DB.executeUpdateEx("ALTER TABLE " + tableName + " RENAME TO " + oldTableName, trxName);
+		DB.executeUpdateEx("ALTER TABLE " + shadowTableName + " RENAME TO " + tableName, trxName);
+		DB.executeUpdateEx("DROP TABLE " + oldTableName, trxName);
+
+		for (String constraintName : constraints.keySet()) {
+			DB.executeUpdateEx("ALTER TABLE " + tableName + " RENAME CONSTRAINT " + getShadowName(constraintName) + " TO " + constraintName, trxName);
+		}
+		for (String indexName : uniqueIndexes.keySet()) {
+			DB.executeUpdateEx("ALTER INDEX " + getShadowName(indexName) + " RENAME TO " + indexName, trxName);
+		}
+		for (String indexName : indexes.keySet()) {
+			DB.executeUpdateEx("ALTER INDEX " + getShadowName(indexName) + " RENAME TO " + indexName, trxName);
+		}
+		DB.executeUpdateEx("DROP TABLE " + versionTableName, trxName);
+
+		if (log.isLoggable(Level.INFO))
+			log.info("Swapped " + shadowTableName + " into " + tableName + " in " + (System.currentTimeMillis() - startTime) + " ms, "
+					+ merged + " concurrent changes merged, locked " + (System.currentTimeMillis() - lockTime) + " ms");
+	}
+
+	/**
+	 * Merge rows written to the live table by other transactions since {@link #create()}:
+	 * rows deleted from the live table are deleted from the shadow, new and updated rows replace the shadow rows
+	 * @return number of merged rows
+	 */
+	private int mergeChanges() {
+		String keyJoin = "v.ad_client_id = l.ad_client_id AND v.ad_table_id = l.ad_table_id AND v.record_id = l.record_id";
+		String changedRows = "SELECT l.* FROM " + tableName + " l "
+				+ "WHERE NOT EXISTS (SELECT 1 FROM " + versionTableName + " v WHERE " + keyJoin + " AND v.row_xmin = l.xmin)";
+		int merged = DB.executeUpdateEx("DELETE FROM " + shadowTableName + " s "
+				+ "WHERE EXISTS (SELECT 1 FROM " + versionTableName + " v WHERE v.ad_client_id = s.ad_client_id AND v.ad_table_id = s.ad_table_id AND v.record_id = s.record_id) "
+				+ "AND NOT EXISTS (SELECT 1 FROM " + tableName + " l WHERE l.ad_client_id = s.ad_client_id AND l.ad_table_id = s.ad_table_id AND l.record_id = s.record_id)",
+				trxName);
+		DB.executeUpdateEx("DELETE FROM " + shadowTableName + " s USING (" + changedRows + ") c "
+				+ "WHERE s.ad_client_id = c.ad_client_id AND s.ad_table_id = c.ad_table_id AND s.record_id = c.record_id",
+				trxName);
+		merged += DB.executeUpdateEx("INSERT INTO " + shadowTableName + " " + changedRows, trxName);
+		return merged;
+	}
+
+	/**
+	 * Get the primary key and unique constraints of the live table
+	 * @return constraint definitions, key is the constraint name
+	 */
+	private Map<String, String> getConstraints() {
+		String sql = "SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint WHERE conrelid = ?::regclass AND contype IN ('p','u') ORDER BY conname";
+		return getDefinitions(sql);
+	}
+
+	/**
+	 * Get the indexes of the live table not backing a constraint (e.g. GIN on idx_tsvector)
+	 * @param isUnique - unique indexes (used by the upserts) or the other indexes
+	 * @return index definitions, key is the index name
+	 */
+	private Map<String, String> getIndexes(boolean isUnique) {
+		String sql = "SELECT c.relname, pg_get_indexdef(i.indexrelid) FROM pg_index i "
+				+ "JOIN pg_class c ON (c.oid = i.indexrelid) "
+				+ "WHERE i.indrelid = ?::regclass AND i.indisunique = " + (isUnique ? "true" : "false") + " "
+				+ "AND NOT EXISTS (SELECT 1 FROM pg_constraint con WHERE con.conindid = i.indexrelid) "
+				+ "ORDER BY c.relname";
+		return getDefinitions(sql);
+	}
+
+	/**
+	 * Read name / definition pairs of the live table
+	 * @param sql
+	 * @return definitions, key is the name
+	 */
+	private Map<String, String> getDefinitions(String sql) {
+		Map<String, String> definitions = new LinkedHashMap<>();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = DB.prepareStatement(sql, trxName);
+			pstmt.setString(1, tableName);
+			rs = pstmt.executeQuery();
+			while (rs.next()) {
+				definitions.put(rs.getString(1), rs.getString(2));
+			}
+		} catch (SQLException e) {
+			throw new DBException(e, sql);
+		} finally {
+			DB.close(rs, pstmt);
+		}
+		return definitions;
+	}
+
+	/**
+	 * Rewrite an index definition of the live table for the shadow table
+	 * @param indexName
+	 * @param indexDef - CREATE [UNIQUE] INDEX name ON table USING ...
+	 * @return CREATE INDEX statement for the shadow table
+	 */
+	private String getShadowIndexDDL(String indexName, String indexDef) {
+		int usingPos = indexDef.indexOf(" USING ");
+		if (usingPos < 0)
+			throw new DBException("Unsupported index definition: " + indexDef);
+		StringBuilder ddl = new StringBuilder(indexDef.startsWith("CREATE UNIQUE INDEX") ? "CREATE UNIQUE INDEX " : "CREATE INDEX ");
+		ddl.append(getShadowName(indexName)).append(" ON ").append(shadowTableName).append(indexDef.substring(usingPos));
+		return ddl.toString();
+	}
+
+	/**
+	 * Get the name of a constraint or index of the shadow table
+	 * @param name - constraint or index name of the live table
+	 * @return name unique to this rebuild
+	 */
+	private String getShadowName(String name) {
+		return getTempName(name, "_sh" + runSuffix);
+	}
+
+	/**
+	 * Get a temporary object name within the identifier length limit
+	 * @param name
+	 * @param suffix
+	 * @return name with suffix
+	 */
+	private static String getTempName(String name, String suffix) {
+		if (name.length() + suffix.length() > MAX_IDENTIFIER_LENGTH)
+			name = name.substring(0, MAX_IDENTIFIER_LENGTH - suffix.length());
+		return name + suffix;
+	}
+}
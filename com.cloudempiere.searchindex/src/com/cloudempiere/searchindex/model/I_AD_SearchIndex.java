@@ -109,6 +109,19 @@ public interface I_AD_SearchIndex
 	  */
 	public int getCreatedBy();
 
+    /** Column name DateLastRun */
+    public static final String COLUMNNAME_DateLastRun = "DateLastRun";
+
+	/** Set Date last run.
+	  * Date the process was last run.
+	  */
+	public void setDateLastRun (Timestamp DateLastRun);
+
+	/** Get Date last run.
+	  * Date the process was last run.
+	  */
+	public Timestamp getDateLastRun();
+
     /** Column name Description */
     public static final String COLUMNNAME_Description = "Description";
 
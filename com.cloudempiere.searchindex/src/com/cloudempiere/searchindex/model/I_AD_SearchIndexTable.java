@@ -137,6 +137,19 @@ public interface I_AD_SearchIndexTable
 	  */
 	public String getHelp();
 
+    /** Column name IndexingPolicy */
+    public static final String COLUMNNAME_IndexingPolicy = "IndexingPolicy";
+
+	/** Set Indexing Policy.
+	  * When the changed records are indexed
+	  */
+	public void setIndexingPolicy (String IndexingPolicy);
+
+	/** Get Indexing Policy.
+	  * When the changed records are indexed
+	  */
+	public String getIndexingPolicy();
+
     /** Column name IsActive */
     public static final String COLUMNNAME_IsActive = "IsActive";
 
@@ -36,6 +36,7 @@ import org.idempiere.cache.ImmutableIntPOCache;
 import org.idempiere.cache.ImmutablePOSupport;
 
 import com.cloudempiere.searchindex.event.pojo.IndexedTable;
+import com.cloudempiere.searchindex.util.SearchIndexKeyFilter;
 import com.cloudempiere.searchindex.util.SearchIndexUtils;
 
 /**
@@ -186,7 +187,9 @@ public class MSearchIndex extends X_AD_SearchIndex implements ImmutablePOSupport
 	}
 	
 	/**
-	 * Check if the given index table contains the given record
+	 * Check if the given index table contains the given record.
+	 * Records absent from the Bloom filter of the index table are not queried on a single node, see {@link SearchIndexKeyFilter}.
+	 * The filter can not tell the records written by the transaction until it commits, they are queried.
 	 * @param ctx
 	 * @param tableId
 	 * @param recordId
@@ -195,9 +198,15 @@ public class MSearchIndex extends X_AD_SearchIndex implements ImmutablePOSupport
 	 * @return true if the given index table contains the given record
 	 */
 	public static boolean containsRecord(Properties ctx, int clientId, int tableId, int recordId, String indexTableName, String trxName) {
+		Boolean mightContain = SearchIndexKeyFilter.mightContain(clientId, tableId, recordId, indexTableName, trxName);
+		if (Boolean.FALSE.equals(mightContain))
+			return false;
 		StringBuilder sql = new StringBuilder("SELECT 1 FROM ").append(indexTableName)
 				.append(" WHERE AD_Client_ID=? AND AD_Table_ID=? AND Record_ID=?");
-		return DB.getSQLValue(trxName, sql.toString(), clientId, tableId, recordId) > 0;
+		boolean isContained = DB.getSQLValue(trxName, sql.toString(), clientId, tableId, recordId) > 0;
+		if (mightContain != null && !isContained)
+			SearchIndexKeyFilter.addFalsePositive(indexTableName);
+		return isContained;
 	}
 	
 	/**
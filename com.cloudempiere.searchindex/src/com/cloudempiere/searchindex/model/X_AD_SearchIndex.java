@@ -18,6 +18,7 @@
 package com.cloudempiere.searchindex.model;
 
 import java.sql.ResultSet;
+import java.sql.Timestamp;
 import java.util.Properties;
 import org.compiere.model.*;
 
@@ -148,6 +149,22 @@ public class X_AD_SearchIndex extends PO implements I_AD_SearchIndex, I_Persiste
 		return ii.intValue();
 	}
 
+	/** Set Date last run.
+		@param DateLastRun Date the process was last run.
+	*/
+	public void setDateLastRun (Timestamp DateLastRun)
+	{
+		set_Value (COLUMNNAME_DateLastRun, DateLastRun);
+	}
+
+	/** Get Date last run.
+		@return Date the process was last run.
+	  */
+	public Timestamp getDateLastRun()
+	{
+		return (Timestamp)get_Value(COLUMNNAME_DateLastRun);
+	}
+
 	/** Set Description.
 		@param Description Optional short description of the record
 	*/
@@ -43,6 +43,8 @@ public class X_AD_SearchIndexTable extends PO implements I_AD_SearchIndexTable,
 // @AD_SearchIndex_ID@
 			setAD_SearchIndexTable_ID (0);
 			setAD_Table_ID (0);
+			setIndexingPolicy (null);
+// S
 			setName (null);
         } */
     }
@@ -57,6 +59,8 @@ public class X_AD_SearchIndexTable extends PO implements I_AD_SearchIndexTable,
 // @AD_SearchIndex_ID@
 			setAD_SearchIndexTable_ID (0);
 			setAD_Table_ID (0);
+			setIndexingPolicy (null);
+// S
 			setName (null);
         } */
     }
@@ -196,6 +200,29 @@ public class X_AD_SearchIndexTable extends PO implements I_AD_SearchIndexTable,
 		return (String)get_Value(COLUMNNAME_Help);
 	}
 
+	/** Asynchronous = A */
+	public static final String INDEXINGPOLICY_Asynchronous = "A";
+	/** Deferred = D */
+	public static final String INDEXINGPOLICY_Deferred = "D";
+	/** Synchronous = S */
+	public static final String INDEXINGPOLICY_Synchronous = "S";
+	/** Set Indexing Policy.
+		@param IndexingPolicy When the changed records are indexed
+	*/
+	public void setIndexingPolicy (String IndexingPolicy)
+	{
+
+		set_Value (COLUMNNAME_IndexingPolicy, IndexingPolicy);
+	}
+
+	/** Get Indexing Policy.
+		@return When the changed records are indexed
+	  */
+	public String getIndexingPolicy()
+	{
+		return (String)get_Value(COLUMNNAME_IndexingPolicy);
+	}
+
 	/** Set Name.
 		@param Name Alphanumeric identifier of the entity
 	*/
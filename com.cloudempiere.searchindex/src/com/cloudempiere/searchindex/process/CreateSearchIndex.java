@@ -22,28 +22,66 @@
 **********************************************************************/
 package com.cloudempiere.searchindex.process;
 
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
 import org.adempiere.exceptions.FillMandatoryException;
+import org.compiere.model.MSysConfig;
 import org.compiere.process.ProcessInfoParameter;
 import org.compiere.process.SvrProcess;
 import org.compiere.util.DB;
 import org.compiere.util.Msg;
 
 import com.cloudempiere.searchindex.indexprovider.ISearchIndexProvider;
+import com.cloudempiere.searchindex.indexprovider.pgtextsearch.PGTextSearchIndexProvider;
 import com.cloudempiere.searchindex.util.SearchIndexConfigBuilder;
+import com.cloudempiere.searchindex.util.SearchIndexProgress;
 import com.cloudempiere.searchindex.util.SearchIndexUtils;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexColumnData;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexConfig;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexTableConfig;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
 
 public class CreateSearchIndex extends SvrProcess {
 	
+	/** Records per chunk of the streamed reindex, 0 loads all records at once */
+	public static final String SYSCONFIG_REINDEX_CHUNK_SIZE = "SEARCH_INDEX_REINDEX_CHUNK_SIZE";
+	/** Index with set-based statements executed by the database, if supported by the provider */
+	public static final String SYSCONFIG_SET_BASED_REINDEX = "SEARCH_INDEX_SET_BASED_REINDEX";
+	/** Number of index tables rebuilt in parallel, each in its own transaction */
+	public static final String SYSCONFIG_REINDEX_PARALLELISM = "SEARCH_INDEX_REINDEX_PARALLELISM";
+	/** Number of key ranges a table is split into for parallel rebuild */
+	public static final String SYSCONFIG_REINDEX_TABLE_PARTITIONS = "SEARCH_INDEX_REINDEX_TABLE_PARTITIONS";
+	/** Commit per chunk and resume an interrupted rebuild from its checkpoints */
+	public static final String SYSCONFIG_REINDEX_RESUMABLE = "SEARCH_INDEX_REINDEX_RESUMABLE";
+	/** Default of the IsDelta parameter - reindex only records changed since the last run */
+	public static final String SYSCONFIG_REINDEX_DELTA = "SEARCH_INDEX_REINDEX_DELTA";
+	/** Seconds before the last run also rechecked by a delta reindex (changes committed late) */
+	public static final String SYSCONFIG_DELTA_OVERLAP_SECONDS = "SEARCH_INDEX_DELTA_OVERLAP_SECONDS";
+
 	/** Search Index Provider */
 	protected int p_AD_SearchIndexProvider_ID = -1;
 	/** Search Index */
 	protected int p_AD_SearchIndex_ID = -1;
+	/** Delta reindex, null for the SysConfig default */
+	protected Boolean p_IsDelta = null;
+
+	/** Start of this run, saved as DateLastRun */
+	private Timestamp runStart = null;
 	
 	@Override
 	protected void prepare() {
@@ -57,6 +95,8 @@ public class CreateSearchIndex extends SvrProcess {
 				p_AD_SearchIndexProvider_ID = para[i].getParameterAsInt();
 			else if (name.equals("AD_SearchIndex_ID"))
 				p_AD_SearchIndex_ID = para[i].getParameterAsInt();
+			else if (name.equals("IsDelta"))
+				p_IsDelta = para[i].getParameterAsBoolean();
 			else
 				log.log(Level.SEVERE, "Unknown Parameter: " + name);
 		}
@@ -68,11 +108,84 @@ public class CreateSearchIndex extends SvrProcess {
 		if(p_AD_SearchIndexProvider_ID <= 0)
 			throw new FillMandatoryException("AD_SearchIndexProvider_ID");
 		
+		// records changed from now on are picked up by the next delta run
+		runStart = new Timestamp(System.currentTimeMillis());
+
 		// Get provider
 		ISearchIndexProvider provider = SearchIndexUtils.getSearchIndexProvider(getCtx(), p_AD_SearchIndexProvider_ID, processUI, get_TrxName());
 		if(provider == null)
 			throw new AdempiereException(Msg.getMsg(getCtx(), "SearchIndexProviderNotFound"));
 		
+		boolean isSetBased = provider.isSourceIndexSupported() && MSysConfig.getBooleanValue(SYSCONFIG_SET_BASED_REINDEX, false, getAD_Client_ID());
+		boolean isBulkLoad = MSysConfig.getBooleanValue(ISearchIndexProvider.SYSCONFIG_BULK_LOAD, false, getAD_Client_ID());
+		int chunkSize = MSysConfig.getIntValue(SYSCONFIG_REINDEX_CHUNK_SIZE, SearchIndexConfigBuilder.DEFAULT_CHUNK_SIZE, getAD_Client_ID());
+		int parallelism = MSysConfig.getIntValue(SYSCONFIG_REINDEX_PARALLELISM, 1, getAD_Client_ID());
+		boolean isDelta = p_IsDelta != null ? p_IsDelta : MSysConfig.getBooleanValue(SYSCONFIG_REINDEX_DELTA, false, getAD_Client_ID());
+		boolean isResumable = MSysConfig.getBooleanValue(SYSCONFIG_REINDEX_RESUMABLE, false, getAD_Client_ID());
+
+		// all records at once only for a plain full rebuild, the other modes read in chunks
+		if (!isSetBased && chunkSize <= 0 && !isDelta && parallelism <= 1 && !isResumable)
+			return reCreateIndex(provider);
+		if (chunkSize <= 0)
+			chunkSize = SearchIndexConfigBuilder.DEFAULT_CHUNK_SIZE;
+
+		SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
+				.setCtx(getCtx())
+				.setTrxName(get_TrxName())
+				.setAD_SearchIndexProvider_ID(p_AD_SearchIndexProvider_ID)
+				.setAD_SearchIndex_ID(p_AD_SearchIndex_ID); // optional
+		List<SearchIndexConfig> searchIndexConfigs = builder.getSearchIndexConfigs();
+		if (searchIndexConfigs == null || searchIndexConfigs.isEmpty())
+			return Msg.getMsg(getCtx(), "NoRecordsFound");
+
+		if (isDelta)
+			return updateIndexDelta(provider, searchIndexConfigs, chunkSize, isSetBased, isBulkLoad);
+
+		if ((parallelism > 1 || isResumable) && MSysConfig.getBooleanValue(PGTextSearchIndexProvider.SYSCONFIG_SHADOW_REBUILD, false, getAD_Client_ID())) {
+			// both commit in parts, the records are upserted into the live index instead
+			String msg = PGTextSearchIndexProvider.SYSCONFIG_SHADOW_REBUILD + " is not used by the " + (parallelism > 1 ? "parallel" : "resumable") + " rebuild, records are upserted into the live index"; // TODO translate
+			log.info(msg);
+			addLog(msg);
+		}
+		if (parallelism > 1)
+			return reCreateIndexParallel(builder, searchIndexConfigs, parallelism, chunkSize, isSetBased, isBulkLoad);
+		if (isResumable)
+			return reCreateIndexResumable(provider, searchIndexConfigs, chunkSize, isSetBased, isBulkLoad);
+
+		for (SearchIndexConfig searchIndexConfig : searchIndexConfigs) {
+			provider.beginRebuild(getCtx(), searchIndexConfig.getSearchIndexName(), get_TrxName());
+		}
+
+		// Records are read through a cursor and passed to the provider in chunks,
+		// or indexed by the database when set-based indexing is enabled
+		AtomicInteger progress = new AtomicInteger();
+		int count = SearchIndexTableWorker.indexRecords(getCtx(), provider, builder, get_TrxName(), chunkSize, isSetBased, isBulkLoad, indexed -> {
+			int processed = progress.addAndGet(indexed);
+			if (processUI != null)
+				processUI.statusUpdate("Indexed " + processed + " records"); // TODO translate
+		});
+
+		// every swap locks its live table until the commit
+		for (SearchIndexConfig searchIndexConfig : searchIndexConfigs) {
+			provider.endRebuild(getCtx(), searchIndexConfig.getSearchIndexName(), get_TrxName());
+			setValid(searchIndexConfig.getSearchIndexId());
+			commitEx();
+		}
+
+		if (count <= 0)
+			return Msg.getMsg(getCtx(), "NoRecordsFound");
+		addLog(getProcessedMsg(count, provider.getWrittenCount(), provider.getSkippedCount()));
+		return Msg.getMsg(getCtx(), "Success");
+	}
+
+	/**
+	 * Recreate the index loading all records into memory at once,
+	 * the transaction is committed after the rebuild of every search index
+	 * @param provider
+	 * @return process message
+	 * @throws SQLException
+	 */
+	protected String reCreateIndex(ISearchIndexProvider provider) throws SQLException {
 		// Load data
 		if (processUI != null) {
 			processUI.statusUpdate("Collecting data...");  // TODO translate
@@ -88,15 +201,301 @@ public class CreateSearchIndex extends SvrProcess {
 	    	return Msg.getMsg(getCtx(), "NoRecordsFound");
 	    
 		// Recreate index
-	    provider.reCreateIndex(getCtx(), indexRecordsMap, get_TrxName());
-	    
-	    // Set Search Index definitions as valid
+	    Map<Integer, String> searchIndexNames = new HashMap<>();
 	    for (Map.Entry<Integer, Set<SearchIndexTableData>> searchIndexRecord : indexRecordsMap.entrySet()) {
-	    	int searchIndexId = searchIndexRecord.getKey();
-				String sql = "UPDATE AD_SearchIndex SET IsValid='Y' WHERE AD_SearchIndex_ID=?";
-				DB.executeUpdateEx(sql, new Object[] {searchIndexId}, get_TrxName());
+	    	for (SearchIndexTableData tableData : searchIndexRecord.getValue()) {
+	    		searchIndexNames.put(searchIndexRecord.getKey(), tableData.getSearchIndexName());
+	    	}
+	    }
+	    for (String searchIndexName : searchIndexNames.values()) {
+	    	provider.beginRebuild(getCtx(), searchIndexName, get_TrxName());
+	    }
+	    if (MSysConfig.getBooleanValue(ISearchIndexProvider.SYSCONFIG_BULK_LOAD, false, getAD_Client_ID()))
+	    	provider.bulkLoadIndex(getCtx(), indexRecordsMap, get_TrxName());
+	    else
+	    	provider.createIndex(getCtx(), indexRecordsMap, get_TrxName());
+	    
+	    // Set Search Index definitions as valid, every swap locks its live table until the commit
+	    for (Map.Entry<Integer, String> searchIndexName : searchIndexNames.entrySet()) {
+	    	provider.endRebuild(getCtx(), searchIndexName.getValue(), get_TrxName());
+	    	setValid(searchIndexName.getKey());
+	    	commitEx();
 	    }
 		
 		return Msg.getMsg(getCtx(), "Success"); // FIXME no error message
 	}
+
+	/**
+	 * Recreate the index tables in parallel, every AD_SearchIndexTable is rebuilt
+	 * by a worker in its own transaction. With SEARCH_INDEX_REINDEX_TABLE_PARTITIONS
+	 * tables are split into key ranges rebuilt by separate workers.
+	 * The records are upserted over the current rows and rows of records which are gone are deleted,
+	 * searches keep finding the previous rows of a part until its worker commits.
+	 * A failed part keeps its previous rows and is reported in the process log,
+	 * the search index stays invalid.
+	 * @param builder - reads the key ranges
+	 * @param searchIndexConfigs
+	 * @param parallelism - number of workers
+	 * @param chunkSize - records per chunk of the streamed read
+	 * @param isSetBased - index with set-based statements
+	 * @param isBulkLoad - use the bulk load path of the provider
+	 * @return process message
+	 * @throws SQLException
+	 */
+	protected String reCreateIndexParallel(SearchIndexConfigBuilder builder, List<SearchIndexConfig> searchIndexConfigs, int parallelism, int chunkSize, boolean isSetBased, boolean isBulkLoad) throws SQLException {
+		int partitions = MSysConfig.getIntValue(SYSCONFIG_REINDEX_TABLE_PARTITIONS, 1, getAD_Client_ID());
+		AtomicInteger progress = new AtomicInteger();
+		List<SearchIndexTableWorker> workers = new ArrayList<>();
+		for (SearchIndexConfig searchIndexConfig : searchIndexConfigs) {
+			for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+				// large tables are split into key ranges indexed concurrently
+				List<Integer> rangeStarts = partitions > 1 ? builder.getKeyRangeStarts(tableConfig, partitions) : new ArrayList<>();
+				if (rangeStarts.size() <= 1) {
+					workers.add(new SearchIndexTableWorker(getCtx(), p_AD_SearchIndexProvider_ID, searchIndexConfig.getSearchIndexId(), searchIndexConfig.getSearchIndexName(),
+							tableConfig.getTableId(), tableConfig.getTableName(), chunkSize, isSetBased, isBulkLoad, progress));
+					continue;
+				}
+				for (int i = 0; i < rangeStarts.size(); i++) {
+					int fromKey = i == 0 ? -1 : rangeStarts.get(i);
+					int toKey = i == rangeStarts.size() - 1 ? -1 : rangeStarts.get(i + 1);
+					workers.add(new SearchIndexTableWorker(getCtx(), p_AD_SearchIndexProvider_ID, searchIndexConfig.getSearchIndexId(), searchIndexConfig.getSearchIndexName(),
+							tableConfig.getTableId(), tableConfig.getTableName(), chunkSize, isSetBased, isBulkLoad, progress)
+							.setKeyRange(fromKey, toKey));
+				}
+			}
+		}
+
+		AtomicInteger threadNo = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, workers.size())), runnable -> {
+			Thread thread = new Thread(runnable, "SearchIndexWorker-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		Set<Integer> failedSearchIndexIds = new HashSet<>();
+		int count = 0;
+		int writtenCount = 0;
+		int skippedCount = 0;
+		int failed = 0;
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (SearchIndexTableWorker worker : workers) {
+				futures.add(executor.submit(worker));
+			}
+			for (int i = 0; i < workers.size(); i++) {
+				SearchIndexTableWorker worker = workers.get(i);
+				try {
+					count += futures.get(i).get();
+					writtenCount = writtenCount < 0 || worker.getWrittenCount() < 0 ? -1 : writtenCount + worker.getWrittenCount();
+					skippedCount += worker.getSkippedCount();
+				} catch (ExecutionException e) {
+					failed++;
+					failedSearchIndexIds.add(worker.getSearchIndexId());
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					addLog("@Error@ " + worker + ": " + cause.getLocalizedMessage());
+				}
+				if (processUI != null)
+					processUI.statusUpdate("Indexed " + (i + 1) + "/" + workers.size() + " parts, " + progress.get() + " records"); // TODO translate
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AdempiereException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (SearchIndexConfig searchIndexConfig : searchIndexConfigs) {
+			if (!failedSearchIndexIds.contains(searchIndexConfig.getSearchIndexId()))
+				setValid(searchIndexConfig.getSearchIndexId());
+		}
+
+		addLog(getProcessedMsg(count, writtenCount, skippedCount));
+		if (failed > 0) {
+			// keep the state of the indexes rebuilt successfully
+			commitEx();
+			return "@Error@ " + failed + "/" + workers.size() + " search index table parts failed";
+		}
+		return Msg.getMsg(getCtx(), "Success");
+	}
+
+	/**
+	 * Recreate the index committing after every chunk. The last indexed Record_ID of
+	 * each table is saved with the chunk in {@link SearchIndexProgress}, a run after
+	 * a crash or cancel continues from the checkpoints instead of starting over.
+	 * The records are upserted over the current index rows, searches keep finding the
+	 * previous content while the rebuild runs. Index rows of records which no longer
+	 * exist or no longer match the configuration are removed when their table completes.
+	 * @param provider
+	 * @param searchIndexConfigs
+	 * @param chunkSize - records per chunk and commit
+	 * @param isSetBased - index with set-based statements, checkpoint per table
+	 * @param isBulkLoad - use the bulk load path of the provider
+	 * @return process message
+	 * @throws SQLException
+	 */
+	protected String reCreateIndexResumable(ISearchIndexProvider provider, List<SearchIndexConfig> searchIndexConfigs, int chunkSize, boolean isSetBased, boolean isBulkLoad) throws SQLException {
+		AtomicInteger count = new AtomicInteger();
+		for (SearchIndexConfig searchIndexConfig : searchIndexConfigs) {
+			SearchIndexProgress progress = new SearchIndexProgress(getAD_Client_ID(), searchIndexConfig.getSearchIndexId(), get_TrxName());
+			if (progress.isResumable()) {
+				addLog("Resuming " + searchIndexConfig.getSearchIndexName()); // TODO translate
+			} else {
+				List<Integer> tableIds = new ArrayList<>();
+				for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+					tableIds.add(tableConfig.getTableId());
+				}
+				progress.start(tableIds);
+				commitEx();
+			}
+
+			for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+				int tableId = tableConfig.getTableId();
+				if (progress.isCompleted(tableId))
+					continue;
+
+				int lastRecordId = progress.getLastRecordId(tableId);
+				SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
+						.setCtx(getCtx())
+						.setAD_SearchIndexProvider_ID(p_AD_SearchIndexProvider_ID)
+						.setAD_SearchIndex_ID(searchIndexConfig.getSearchIndexId())
+						.setRecord(tableId, -1)
+						.setKeyRange(lastRecordId > 0 ? lastRecordId + 1 : -1, -1)
+						.setOrderByKey(true);
+				if (isSetBased) {
+					builder.setTrxName(get_TrxName());
+					count.addAndGet(SearchIndexTableWorker.indexRecords(getCtx(), provider, builder, get_TrxName(), chunkSize, true, isBulkLoad, indexed -> {}));
+				} else {
+					// the cursor reads in its own transaction, the process transaction is committed per chunk
+					builder.streamData(chunkSize, chunk -> {
+						if (isBulkLoad)
+							provider.bulkLoadIndex(getCtx(), chunk, get_TrxName());
+						else
+							provider.createIndex(getCtx(), chunk, get_TrxName());
+						progress.saveCheckpoint(tableId, getLastRecordId(chunk));
+						try {
+							commitEx();
+						} catch (SQLException e) {
+							throw new DBException(e);
+						}
+						int processed = count.addAndGet(chunk.values().stream().flatMap(Set::stream).mapToInt(tableData -> tableData.getColumnData().size()).sum());
+						if (processUI != null)
+							processUI.statusUpdate("Indexed " + processed + " records"); // TODO translate
+					});
+				}
+				// remove records which are gone
+				List<Object> params = new ArrayList<>();
+				String keyQuery = new SearchIndexConfigBuilder()
+						.setCtx(getCtx())
+						.setTrxName(get_TrxName())
+						.setAD_SearchIndexProvider_ID(p_AD_SearchIndexProvider_ID)
+						.setAD_SearchIndex_ID(searchIndexConfig.getSearchIndexId())
+						.getKeyQuery(tableConfig, params);
+				provider.deleteIndexNotInKeys(getCtx(), searchIndexConfig.getSearchIndexName(), tableId, keyQuery, params.toArray(), get_TrxName());
+				progress.complete(tableId);
+				commitEx();
+			}
+
+			progress.finish();
+			setValid(searchIndexConfig.getSearchIndexId());
+			commitEx();
+		}
+
+		if (count.get() <= 0)
+			return Msg.getMsg(getCtx(), "NoRecordsFound");
+		addLog(getProcessedMsg(count.get(), provider.getWrittenCount(), provider.getSkippedCount()));
+		return Msg.getMsg(getCtx(), "Success");
+	}
+
+	/**
+	 * Reindex only the records whose main or joined rows were updated since the last run
+	 * of the search index (AD_SearchIndex.DateLastRun) and remove index rows of records
+	 * which no longer exist or no longer match the configuration.
+	 * Search indexes without a valid last run are rebuilt completely.
+	 * @param provider
+	 * @param searchIndexConfigs
+	 * @param chunkSize - records per chunk of the streamed read
+	 * @param isSetBased - index with set-based statements
+	 * @param isBulkLoad - use the bulk load path of the provider for full rebuilds
+	 * @return process message
+	 * @throws SQLException
+	 */
+	protected String updateIndexDelta(ISearchIndexProvider provider, List<SearchIndexConfig> searchIndexConfigs, int chunkSize, boolean isSetBased, boolean isBulkLoad) throws SQLException {
+		int overlapSeconds = MSysConfig.getIntValue(SYSCONFIG_DELTA_OVERLAP_SECONDS, 300, getAD_Client_ID());
+		AtomicInteger progress = new AtomicInteger();
+		int count = 0;
+		for (SearchIndexConfig searchIndexConfig : searchIndexConfigs) {
+			Timestamp lastRun = DB.getSQLValueTSEx(get_TrxName(), "SELECT DateLastRun FROM AD_SearchIndex WHERE AD_SearchIndex_ID=? AND IsValid='Y'", searchIndexConfig.getSearchIndexId());
+			SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
+					.setCtx(getCtx())
+					.setTrxName(get_TrxName())
+					.setAD_SearchIndexProvider_ID(p_AD_SearchIndexProvider_ID)
+					.setAD_SearchIndex_ID(searchIndexConfig.getSearchIndexId());
+
+			if (lastRun == null) {
+				addLog(searchIndexConfig.getSearchIndexName() + ": no valid last run, full rebuild"); // TODO translate
+				provider.beginRebuild(getCtx(), searchIndexConfig.getSearchIndexName(), get_TrxName());
+				count += SearchIndexTableWorker.indexRecords(getCtx(), provider, builder, get_TrxName(), chunkSize, isSetBased, isBulkLoad, progress::addAndGet);
+				provider.endRebuild(getCtx(), searchIndexConfig.getSearchIndexName(), get_TrxName());
+				setValid(searchIndexConfig.getSearchIndexId());
+				commitEx();
+				continue;
+			}
+
+			// remove records which are gone
+			for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+				List<Object> params = new ArrayList<>();
+				String keyQuery = builder.getKeyQuery(tableConfig, params);
+				provider.deleteIndexNotInKeys(getCtx(), searchIndexConfig.getSearchIndexName(), tableConfig.getTableId(), keyQuery, params.toArray(), get_TrxName());
+			}
+
+			// upsert changed records
+			builder.setUpdatedSince(new Timestamp(lastRun.getTime() - overlapSeconds * 1000L));
+			count += SearchIndexTableWorker.indexRecords(getCtx(), provider, builder, get_TrxName(), chunkSize, isSetBased, false, progress::addAndGet);
+			setValid(searchIndexConfig.getSearchIndexId());
+		}
+
+		addLog(getProcessedMsg(count, provider.getWrittenCount(), provider.getSkippedCount()));
+		return Msg.getMsg(getCtx(), "Success");
+	}
+
+	/**
+	 * Get the log message of the processed records
+	 * @param count - indexed records
+	 * @param writtenCount - written index rows, -1 if not tracked by the provider
+	 * @param skippedCount - index rows not rewritten, content unchanged
+	 * @return message
+	 */
+	private String getProcessedMsg(int count, int writtenCount, int skippedCount) {
+		if (writtenCount < 0)
+			return "@Processed@: " + count;
+		return "@Processed@: " + count + ", written: " + writtenCount + ", unchanged: " + skippedCount; // TODO translate
+	}
+
+	/**
+	 * Get the highest Record_ID of a chunk
+	 * @param chunk - key is AD_SearchIndex_ID
+	 * @return Record_ID
+	 */
+	private int getLastRecordId(Map<Integer, Set<SearchIndexTableData>> chunk) {
+		int lastRecordId = 0;
+		for (Set<SearchIndexTableData> tableDataSet : chunk.values()) {
+			for (SearchIndexTableData tableData : tableDataSet) {
+				for (Map<String, SearchIndexColumnData> columnData : tableData.getColumnData()) {
+					SearchIndexColumnData recordIdData = columnData.get("Record_ID");
+					if (recordIdData != null && recordIdData.getValue() != null)
+						lastRecordId = Math.max(lastRecordId, Integer.parseInt(recordIdData.getValue().toString()));
+				}
+			}
+		}
+		return lastRecordId;
+	}
+
+	/**
+	 * Set Search Index definition as valid and save the start of this run as DateLastRun
+	 * @param searchIndexId - AD_SearchIndex_ID
+	 */
+	protected void setValid(int searchIndexId) {
+		String sql = "UPDATE AD_SearchIndex SET IsValid='Y', DateLastRun=? WHERE AD_SearchIndex_ID=?";
+		DB.executeUpdateEx(sql, new Object[] {runStart, searchIndexId}, get_TrxName());
+	}
 }
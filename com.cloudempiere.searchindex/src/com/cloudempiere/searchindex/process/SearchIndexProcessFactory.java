@@ -35,6 +35,9 @@ public class SearchIndexProcessFactory implements IProcessFactory {
 		if (CreateSearchIndex.class.getName().equals(className)) {
 			return new CreateSearchIndex();
 		}
+		if (UpdateDeferredSearchIndex.class.getName().equals(className)) {
+			return new UpdateDeferredSearchIndex();
+		}
 
 		return null;
 	}
@@ -0,0 +1,234 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.ServerContext;
+import org.compiere.util.CLogger;
+import org.compiere.util.Msg;
+import org.compiere.util.Trx;
+
+import com.cloudempiere.searchindex.indexprovider.ISearchIndexProvider;
+import com.cloudempiere.searchindex.util.SearchIndexConfigBuilder;
+import com.cloudempiere.searchindex.util.SearchIndexUtils;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexConfig;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexSourceQuery;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexTableConfig;
+
+/**
+ * Rebuilds one AD_SearchIndexTable of a search index, or a key range of it, in its own transaction.
+ * Used by {@link CreateSearchIndex} to rebuild the tables of the indexes in parallel.
+ */
+public class SearchIndexTableWorker implements Callable<Integer> {
+
+	/** Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexTableWorker.class);
+
+	/** Context of the process */
+	private final Properties ctx;
+	/** AD_SearchIndexProvider_ID */
+	private final int searchIndexProviderId;
+	/** AD_SearchIndex_ID */
+	private final int searchIndexId;
+	/** SearchIndexName */
+	private final String searchIndexName;
+	/** AD_Table_ID */
+	private final int tableId;
+	/** TableName */
+	private final String tableName;
+	/** Records per chunk of the streamed read */
+	private final int chunkSize;
+	/** Index with set-based statements */
+	private final boolean isSetBased;
+	/** Use the bulk load path of the provider */
+	private final boolean isBulkLoad;
+	/** Indexed records, shared by the workers of a process */
+	private final AtomicInteger progress;
+	/** First key of the key range (inclusive), -1 for unbounded */
+	private int fromKey = -1;
+	/** End of the key range (exclusive), -1 for unbounded */
+	private int toKey = -1;
+	/** Index rows written, -1 if not tracked by the provider */
+	private int writtenCount = -1;
+	/** Index rows not rewritten, content unchanged */
+	private int skippedCount = 0;
+
+	/**
+	 * @param ctx - context of the process, copied for the worker thread
+	 * @param searchIndexProviderId - AD_SearchIndexProvider_ID
+	 * @param searchIndexId - AD_SearchIndex_ID
+	 * @param searchIndexName - SearchIndexName
+	 * @param tableId - AD_Table_ID
+	 * @param tableName - TableName
+	 * @param chunkSize - records per chunk of the streamed read
+	 * @param isSetBased - index with set-based statements
+	 * @param isBulkLoad - use the bulk load path of the provider
+	 * @param progress - incremented by the number of indexed records
+	 */
+	public SearchIndexTableWorker(Properties ctx, int searchIndexProviderId, int searchIndexId, String searchIndexName,
+			int tableId, String tableName, int chunkSize, boolean isSetBased, boolean isBulkLoad, AtomicInteger progress) {
+		this.ctx = new Properties();
+		this.ctx.putAll(ctx);
+		this.searchIndexProviderId = searchIndexProviderId;
+		this.searchIndexId = searchIndexId;
+		this.searchIndexName = searchIndexName;
+		this.tableId = tableId;
+		this.tableName = tableName;
+		this.chunkSize = chunkSize;
+		this.isSetBased = isSetBased;
+		this.isBulkLoad = isBulkLoad;
+		this.progress = progress;
+	}
+
+	/**
+	 * Restrict the worker to a key range of the table
+	 * @param fromKey - first key (inclusive), -1 for unbounded
+	 * @param toKey - end key (exclusive), -1 for unbounded
+	 * @return this
+	 */
+	public SearchIndexTableWorker setKeyRange(int fromKey, int toKey) {
+		this.fromKey = fromKey;
+		this.toKey = toKey;
+		return this;
+	}
+
+	/**
+	 * Upsert the rows of the table (key range) into the index, delete the rows of records
+	 * which are gone from the key range and commit. Searches keep finding the previous rows
+	 * until the commit.
+	 * @return number of indexed records
+	 */
+	@Override
+	public Integer call() throws Exception {
+		ServerContext.setCurrentInstance(ctx);
+		Trx trx = Trx.get(Trx.createTrxName("SearchIdxWorker"), true);
+		String trxName = trx.getTrxName();
+		try {
+			ISearchIndexProvider provider = SearchIndexUtils.getSearchIndexProvider(ctx, searchIndexProviderId, null, trxName);
+			if (provider == null)
+				throw new AdempiereException(Msg.getMsg(ctx, "SearchIndexProviderNotFound"));
+
+			SearchIndexConfigBuilder builder = new SearchIndexConfigBuilder()
+					.setCtx(ctx)
+					.setTrxName(trxName)
+					.setAD_SearchIndexProvider_ID(searchIndexProviderId)
+					.setAD_SearchIndex_ID(searchIndexId)
+					.setRecord(tableId, -1)
+					.setKeyRange(fromKey, toKey);
+			int count = indexRecords(ctx, provider, builder, trxName, chunkSize, isSetBased, isBulkLoad, progress::addAndGet);
+
+			// remove records which are gone
+			for (SearchIndexConfig searchIndexConfig : builder.getSearchIndexConfigs()) {
+				for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+					if (tableConfig.getTableId() != tableId)
+						continue;
+					List<Object> params = new ArrayList<>();
+					String keyQuery = builder.getKeyQuery(tableConfig, params);
+					provider.deleteIndexNotInKeys(ctx, searchIndexName, tableId, fromKey, toKey, keyQuery, params.toArray(), trxName);
+				}
+			}
+			trx.commit(true);
+			writtenCount = provider.getWrittenCount();
+			skippedCount = provider.getSkippedCount();
+			if (log.isLoggable(Level.INFO))
+				log.info(toString() + ": " + count + " records indexed, " + skippedCount + " unchanged");
+			return count;
+		} catch (Exception e) {
+			trx.rollback();
+			log.log(Level.SEVERE, toString(), e);
+			throw e;
+		} finally {
+			trx.close();
+			ServerContext.dispose();
+		}
+	}
+
+	/**
+	 * Index the records selected by the builder
+	 * @param ctx
+	 * @param provider
+	 * @param builder - selects the search indexes and tables
+	 * @param trxName
+	 * @param chunkSize - records per chunk of the streamed read
+	 * @param isSetBased - index with set-based statements executed by the database
+	 * @param isBulkLoad - use the bulk load path of the provider
+	 * @param progress - receives the number of records indexed by each step
+	 * @return number of indexed records
+	 */
+	static int indexRecords(Properties ctx, ISearchIndexProvider provider, SearchIndexConfigBuilder builder, String trxName,
+			int chunkSize, boolean isSetBased, boolean isBulkLoad, IntConsumer progress) {
+		int count = 0;
+		if (isSetBased) {
+			for (SearchIndexSourceQuery sourceQuery : builder.getSourceQueries()) {
+				int indexed = provider.indexFromSource(ctx, sourceQuery, trxName);
+				progress.accept(indexed);
+				count += indexed;
+			}
+			return count;
+		}
+
+		return builder.streamData(chunkSize, chunk -> {
+			if (isBulkLoad)
+				provider.bulkLoadIndex(ctx, chunk, trxName);
+			else
+				provider.createIndex(ctx, chunk, trxName);
+			progress.accept(chunk.values().stream().flatMap(Set::stream).mapToInt(tableData -> tableData.getColumnData().size()).sum());
+		});
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder name = new StringBuilder(searchIndexName).append("/").append(tableName);
+		if (fromKey > 0 || toKey > 0)
+			name.append("[").append(fromKey > 0 ? String.valueOf(fromKey) : "").append("..").append(toKey > 0 ? String.valueOf(toKey) : "").append(")");
+		return name.toString();
+	}
+
+	public int getSearchIndexId() {
+		return searchIndexId;
+	}
+
+	public String getSearchIndexName() {
+		return searchIndexName;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public int getWrittenCount() {
+		return writtenCount;
+	}
+
+	public int getSkippedCount() {
+		return skippedCount;
+	}
+}
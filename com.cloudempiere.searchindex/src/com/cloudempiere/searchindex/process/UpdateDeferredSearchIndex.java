@@ -0,0 +1,82 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.process;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.process.ProcessInfoParameter;
+import org.compiere.process.SvrProcess;
+import org.compiere.util.Msg;
+
+import com.cloudempiere.searchindex.event.SearchIndexChangeProcessor;
+import com.cloudempiere.searchindex.event.SearchIndexQueue;
+import com.cloudempiere.searchindex.event.pojo.IndexedTable;
+import com.cloudempiere.searchindex.util.SearchIndexUtils;
+
+/**
+ * Index the changed records of tables with the deferred indexing policy
+ * (AD_SearchIndexTable.IndexingPolicy = D), meant to be run by a scheduler.<br>
+ * The changes are taken from T_SearchIndex_Queue in batches of SEARCH_INDEX_DEFERRED_BATCH_SIZE,
+ * each batch is coalesced and written in one index transaction.<br>
+ * Run as System the changes of all clients are indexed, otherwise the changes of the client.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class UpdateDeferredSearchIndex extends SvrProcess {
+
+	/** Number of deferred changes indexed in one transaction */
+	public static final String SYSCONFIG_DEFERRED_BATCH_SIZE = "SEARCH_INDEX_DEFERRED_BATCH_SIZE";
+
+	@Override
+	protected void prepare() {
+		for (ProcessInfoParameter para : getParameter()) {
+			if (para.getParameter() != null)
+				log.log(Level.SEVERE, "Unknown Parameter: " + para.getParameterName());
+		}
+	}
+
+	@Override
+	protected String doIt() throws Exception {
+		Map<Integer, Set<IndexedTable>> indexedTablesByClient = SearchIndexUtils.getSearchIndexConfigs(get_TrxName(), -1);
+		if (indexedTablesByClient.isEmpty())
+			return Msg.getMsg(getCtx(), "NoRecordsFound");
+
+		SearchIndexChangeProcessor processor = new SearchIndexChangeProcessor(clientId -> {
+			Set<IndexedTable> indexedTables = new HashSet<>();
+			indexedTables.addAll(indexedTablesByClient.getOrDefault(clientId, Set.of()));
+			indexedTables.addAll(indexedTablesByClient.getOrDefault(0, Set.of()));
+			return indexedTables.isEmpty() ? null : indexedTables;
+		});
+		int batchSize = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_DEFERRED_BATCH_SIZE, 1000, getAD_Client_ID()));
+		// System indexes the deferred changes of all clients
+		int clientId = getAD_Client_ID() == 0 ? -1 : getAD_Client_ID();
+		int count = new SearchIndexQueue(processor).processDeferred(getCtx(), batchSize, clientId);
+		addLog("Indexed " + count + " deferred changes"); // TODO translate
+		return Msg.getMsg(getCtx(), "Success");
+	}
+
+}
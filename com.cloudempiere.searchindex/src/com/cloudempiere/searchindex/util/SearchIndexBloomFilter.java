@@ -0,0 +1,157 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Bloom filter of the (AD_Client_ID, AD_Table_ID, Record_ID) keys of a search index table.<br>
+ * A key never added is reported as absent with the false positive probability of the filter,
+ * an added key is always reported as present. Keys can not be removed, the filter is rebuilt instead.
+ * Adding and checking keys is thread safe and lock free.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexBloomFilter {
+
+	/** Bits */
+	private final AtomicLongArray bits;
+	/** Number of bits */
+	private final long bitSize;
+	/** Number of hash functions */
+	private final int hashCount;
+	/** Number of set bits */
+	private final AtomicLong setBitCount = new AtomicLong();
+
+	/**
+	 * @param expectedKeys - number of keys the filter is sized for
+	 * @param bitsPerKey - bits per expected key, 10 gives about 1% false positives
+	 */
+	public SearchIndexBloomFilter(long expectedKeys, int bitsPerKey) {
+		long size = Math.max(64, Math.max(1, expectedKeys) * Math.max(1, bitsPerKey));
+		int words = (int) Math.min(Integer.MAX_VALUE - 8, (size + 63) >>> 6);
+		bits = new AtomicLongArray(words);
+		bitSize = (long) words << 6;
+		hashCount = Math.max(1, (int) Math.round(Math.max(1, bitsPerKey) * Math.log(2)));
+	}
+
+	/**
+	 * Add a key
+	 * @param clientId - AD_Client_ID
+	 * @param tableId - AD_Table_ID
+	 * @param recordId - Record_ID
+	 */
+	public void put(int clientId, int tableId, int recordId) {
+		long hash1 = hash(clientId, tableId, recordId);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long value;
+			do {
+				value = bits.get(word);
+				if ((value & mask) != 0)
+					break;
+				if (bits.compareAndSet(word, value, value | mask)) {
+					setBitCount.incrementAndGet();
+					break;
+				}
+			} while (true);
+		}
+	}
+
+	/**
+	 * Check a key
+	 * @param clientId - AD_Client_ID
+	 * @param tableId - AD_Table_ID
+	 * @param recordId - Record_ID
+	 * @return false if the key was never added, true if it may have been added
+	 */
+	public boolean mightContain(int clientId, int tableId, int recordId) {
+		long hash1 = hash(clientId, tableId, recordId);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the false positive probability for the current number of set bits
+	 * @return probability between 0 and 1
+	 */
+	public double getExpectedFpp() {
+		return Math.pow((double) setBitCount.get() / bitSize, hashCount);
+	}
+
+	/**
+	 * Get the memory used by the bits
+	 * @return bytes
+	 */
+	public long getMemoryBytes() {
+		return bitSize >>> 3;
+	}
+
+	/**
+	 * @return number of bits
+	 */
+	public long getBitSize() {
+		return bitSize;
+	}
+
+	/**
+	 * @return number of hash functions
+	 */
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	/**
+	 * @param clientId
+	 * @param tableId
+	 * @param recordId
+	 * @return 64 bit hash of the key
+	 */
+	private static long hash(int clientId, int tableId, int recordId) {
+		return mix((((long) tableId << 32) | (recordId & 0xFFFFFFFFL)) ^ mix(clientId + 0x632BE59BD9B4E019L));
+	}
+
+	/**
+	 * Finalizer of MurmurHash3
+	 * @param value
+	 * @return mixed value
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
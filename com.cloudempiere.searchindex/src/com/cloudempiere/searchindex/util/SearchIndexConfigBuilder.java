@@ -4,14 +4,17 @@ import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 import org.adempiere.exceptions.AdempiereException;
@@ -23,11 +26,13 @@ import org.compiere.util.CLogger;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 import org.compiere.util.Msg;
+import org.compiere.util.Trx;
 import org.compiere.util.Util;
 
 import com.cloudempiere.searchindex.util.pojo.SearchIndexColumnConfig;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexColumnData;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexConfig;
+import com.cloudempiere.searchindex.util.pojo.SearchIndexSourceQuery;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexTableConfig;
 import com.cloudempiere.searchindex.util.pojo.SearchIndexTableData;
 
@@ -35,6 +40,8 @@ public class SearchIndexConfigBuilder {
 	
 	/** Logger */
 	private static final CLogger log = CLogger.getCLogger(SearchIndexConfigBuilder.class);
+	/** Default number of records per streamed chunk */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
 	/** Search Index Config Cache */
 	private static final CCache<Integer, List<SearchIndexConfig>> searchIndexConfigCache = new CCache<>("SearchIndexConfig", 50);
 
@@ -50,6 +57,16 @@ public class SearchIndexConfigBuilder {
 	private int tableId = -1;
 	/** Record_ID */
 	private int recordId = -1;
+	/** Record_IDs of the main table, null for all records */
+	private int[] recordIds = null;
+	/** First key of the key range (inclusive), -1 for unbounded */
+	private int fromKey = -1;
+	/** End of the key range (exclusive), -1 for unbounded */
+	private int toKey = -1;
+	/** Read the records ordered by the main key */
+	private boolean isOrderByKey = false;
+	/** Only records changed after this time, null for all records */
+	private Timestamp updatedSince = null;
 	/** Search Index Configs */
 	private List<SearchIndexConfig> searchIndexConfigs = new ArrayList<>();
 	/** Search Index Data - key is AD_SearchIndex_ID */
@@ -107,6 +124,50 @@ public class SearchIndexConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Set Table ID and a set of Record IDs, read with a single query per table
+	 * @param tableId - AD_Table_ID
+	 * @param recordIds - Record_IDs
+	 * @return
+	 */
+	public SearchIndexConfigBuilder setRecords(int tableId, int[] recordIds) {
+		this.tableId = tableId;
+		this.recordIds = recordIds;
+		return this;
+	}
+
+	/**
+	 * Restrict the main table records to a key range
+	 * @param fromKey - first key (inclusive), -1 for unbounded
+	 * @param toKey - end key (exclusive), -1 for unbounded
+	 * @return
+	 */
+	public SearchIndexConfigBuilder setKeyRange(int fromKey, int toKey) {
+		this.fromKey = fromKey;
+		this.toKey = toKey;
+		return this;
+	}
+
+	/**
+	 * Read the records ordered by the main key, required for checkpoints
+	 * @param isOrderByKey
+	 * @return
+	 */
+	public SearchIndexConfigBuilder setOrderByKey(boolean isOrderByKey) {
+		this.isOrderByKey = isOrderByKey;
+		return this;
+	}
+
+	/**
+	 * Only records whose main table row or any joined row was updated after the given time
+	 * @param updatedSince - null for all records
+	 * @return
+	 */
+	public SearchIndexConfigBuilder setUpdatedSince(Timestamp updatedSince) {
+		this.updatedSince = updatedSince;
+		return this;
+	}
+
 	/**
 	 * Build Search Index Config
 	 * @return
@@ -277,62 +338,9 @@ public class SearchIndexConfigBuilder {
 
             	if (tableId > 0 && tableId != tableConfig.getTableId())
             		continue;
-            	
-                StringBuilder fromClauseBuilder = new StringBuilder();
-                fromClauseBuilder.append(" FROM ").append(tableConfig.getTableName());
-                StringBuilder selectClauseBuilder = new StringBuilder();
-                selectClauseBuilder.append("SELECT ").append(tableConfig.getTableName()).append(".").append(tableConfig.getKeyColName()).append(" as Record_ID, ");
-
-                Set<String> joinedTables = new HashSet<>();
-
-                for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
-                    String columnAlias = columnConfig.getTableName() + "_" + columnConfig.getColumnName();
-                    if (columnConfig.getTableId() == tableConfig.getTableId()) {
-                        if (!Util.isEmpty(columnConfig.getColumnName())) {
-                            selectClauseBuilder.append(tableConfig.getTableName()).append(".").append(columnConfig.getColumnName()).append(" as ").append(columnAlias);
-                        }
-                    } else {
-                        if (!Util.isEmpty(columnConfig.getTableName()) && !Util.isEmpty(columnConfig.getColumnName())) {
-                            selectClauseBuilder.append(columnConfig.getTableName()).append(".").append(columnConfig.getColumnName()).append(" as ").append(columnAlias);
-                        }
-                        if (!joinedTables.contains(columnConfig.getTableName())) {
-                            fromClauseBuilder.append(" LEFT JOIN ").append(columnConfig.getTableName()).append(" ON ");
-                            if (!Util.isEmpty(columnConfig.getParentTableName()) && !tableConfig.getTableName().equals(columnConfig.getParentTableName())) {
-                                fromClauseBuilder.append(columnConfig.getParentTableName());
-                            } else {
-                                fromClauseBuilder.append(tableConfig.getTableName());
-                            }
-                            fromClauseBuilder.append(".").append(columnConfig.getParentColumnName());
-                            fromClauseBuilder.append(" = ").append(columnConfig.getTableName()).append(".").append(columnConfig.getColumnName());
-                            joinedTables.add(columnConfig.getTableName());
-                        }
-                    }
-                    if (selectClauseBuilder.charAt(selectClauseBuilder.length() - 2) != ',') {
-                        selectClauseBuilder.append(", ");
-                    }
-                }
-                selectClauseBuilder.deleteCharAt(selectClauseBuilder.length() - 2);
 
-                StringBuilder whereClauseBuilder = new StringBuilder();
                 List<Object> params = new ArrayList<>();
-                whereClauseBuilder.append(" WHERE ").append(tableConfig.getTableName()).append(".AD_Client_ID = ? AND ").append(tableConfig.getTableName()).append(".IsActive = 'Y' ");
-                params.add(Env.getAD_Client_ID(ctx));
-                String dynamicWhere = tableConfig.getSqlWhere();
-                if (!Util.isEmpty(dynamicWhere)) {
-                    // Validate WHERE clause to prevent SQL injection
-                    SearchIndexSecurityValidator.validateWhereClause(dynamicWhere);
-                    if (!dynamicWhere.trim().toUpperCase().startsWith("AND")) {
-                        whereClauseBuilder.append("AND ");
-                    }
-                    whereClauseBuilder.append(dynamicWhere);
-                    whereClauseBuilder.append(" ");
-                }
-                if (recordId > 0) {
-                	whereClauseBuilder.append(" AND ").append(tableConfig.getTableName()).append(".").append(tableConfig.getKeyColName()).append(" = ? ");
-                	params.add(recordId);
-                }
-
-                String query = selectClauseBuilder.toString() + fromClauseBuilder.toString() + whereClauseBuilder.toString();
+                String query = getDataQuery(tableConfig, params);
 
                 PreparedStatement pstmt = null;
                 ResultSet rs = null;
@@ -346,16 +354,7 @@ public class SearchIndexConfigBuilder {
                     searchIndexTableData = new SearchIndexTableData(tableConfig.getTableId(), tableConfig.getKeyColName(), searchIndexConfig.getSearchIndexName());
 
                     while (rs.next()) {
-                        Map<String, SearchIndexColumnData> data = new LinkedHashMap<>();
-                        data.put("Record_ID", new SearchIndexColumnData("Record_ID", rs.getObject("Record_ID"), Env.ONE, tableConfig.getMaxSearchWeight()));
-                        for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
-                            if (!Util.isEmpty(columnConfig.getColumnName())) {
-                                String key = columnConfig.getTableName() + "." + columnConfig.getColumnName();
-                                String columnAlias = columnConfig.getTableName() + "_" + columnConfig.getColumnName();
-                                data.put(key, new SearchIndexColumnData(key, rs.getObject(columnAlias), columnConfig.getSearchWeight(), tableConfig.getMaxSearchWeight()));
-                            }
-                        }
-                        searchIndexTableData.addColumnData(data);
+                        searchIndexTableData.addColumnData(getColumnData(rs, tableConfig));
                     }
                 } catch (Exception e) {
                     log.log(Level.SEVERE, query, e);
@@ -369,6 +368,368 @@ public class SearchIndexConfigBuilder {
             searchIndexData.put(searchIndexConfig.getSearchIndexId(), indexTableDataSet);
         }
     }
+
+    /**
+     * Stream Search Index Data in fixed-size chunks.
+     * Rows are read through a server-side cursor (JDBC fetch size), so only one chunk
+     * is held in memory at a time regardless of the table size.
+     * @param chunkSize - max number of records passed to the consumer at once
+     * @param chunkConsumer - receives each chunk, key is AD_SearchIndex_ID
+     * @return total number of streamed records
+     */
+    public int streamData(int chunkSize, Consumer<Map<Integer, Set<SearchIndexTableData>>> chunkConsumer) {
+    	if (chunkSize <= 0)
+    		chunkSize = DEFAULT_CHUNK_SIZE;
+
+    	List<SearchIndexConfig> configs = getSearchIndexConfigs();
+    	if (configs == null || configs.size() <= 0)
+    		throw new AdempiereException(Msg.getMsg(ctx, "SearchIndexConfigNotFound"));
+
+    	// PostgreSQL honours the fetch size only inside a transaction (no auto-commit)
+    	Trx readTrx = null;
+    	String readTrxName = trxName;
+    	if (readTrxName == null) {
+    		readTrx = Trx.get(Trx.createTrxName("SearchIdxRead"), true);
+    		readTrxName = readTrx.getTrxName();
+    	}
+
+    	int total = 0;
+    	try {
+    		for (SearchIndexConfig searchIndexConfig : configs) {
+    			for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+
+    				if (tableId > 0 && tableId != tableConfig.getTableId())
+    					continue;
+
+    				List<Object> params = new ArrayList<>();
+    				String query = getDataQuery(tableConfig, params);
+
+    				PreparedStatement pstmt = null;
+    				ResultSet rs = null;
+    				try {
+    					pstmt = DB.prepareStatement(query, readTrxName);
+    					pstmt.setFetchSize(chunkSize);
+    					for (int i = 0; i < params.size(); i++) {
+    						pstmt.setObject(i + 1, params.get(i));
+    					}
+    					rs = pstmt.executeQuery();
+
+    					SearchIndexTableData chunk = new SearchIndexTableData(tableConfig.getTableId(), tableConfig.getKeyColName(), searchIndexConfig.getSearchIndexName());
+    					while (rs.next()) {
+    						chunk.addColumnData(getColumnData(rs, tableConfig));
+    						if (chunk.getColumnData().size() >= chunkSize) {
+    							total += chunk.getColumnData().size();
+    							chunkConsumer.accept(toChunk(searchIndexConfig.getSearchIndexId(), chunk));
+    							chunk = new SearchIndexTableData(tableConfig.getTableId(), tableConfig.getKeyColName(), searchIndexConfig.getSearchIndexName());
+    						}
+    					}
+    					if (chunk.getColumnData().size() > 0) {
+    						total += chunk.getColumnData().size();
+    						chunkConsumer.accept(toChunk(searchIndexConfig.getSearchIndexId(), chunk));
+    					}
+    				} catch (SQLException e) {
+    					log.log(Level.SEVERE, query, e);
+    					throw new AdempiereException(e.getMessage());
+    				} finally {
+    					DB.close(rs, pstmt);
+    				}
+    			}
+    		}
+    	} finally {
+    		if (readTrx != null)
+    			readTrx.close();
+    	}
+    	return total;
+    }
+
+    /**
+     * Wrap a single table data chunk into the provider data structure
+     * @param searchIndexId - AD_SearchIndex_ID
+     * @param chunk
+     * @return map with a single entry, key is AD_SearchIndex_ID
+     */
+    private Map<Integer, Set<SearchIndexTableData>> toChunk(int searchIndexId, SearchIndexTableData chunk) {
+    	Set<SearchIndexTableData> tableDataSet = new HashSet<>();
+    	tableDataSet.add(chunk);
+    	Map<Integer, Set<SearchIndexTableData>> chunkMap = new HashMap<>();
+    	chunkMap.put(searchIndexId, tableDataSet);
+    	return chunkMap;
+    }
+
+    /**
+     * Get the source data query of a search index table
+     * @param tableConfig
+     * @param params - query parameters (out)
+     * @return SELECT statement
+     */
+    protected String getDataQuery(SearchIndexTableConfig tableConfig, List<Object> params) {
+    	String query = getSelectClause(tableConfig) + getFromClause(tableConfig) + getWhereClause(tableConfig, params);
+    	if (isOrderByKey)
+    		query += " ORDER BY " + tableConfig.getTableName() + "." + tableConfig.getKeyColName();
+    	return query;
+    }
+
+    /**
+     * Get the SELECT clause - record key and one aliased column per indexed column
+     * @param tableConfig
+     * @return SELECT clause
+     */
+    protected String getSelectClause(SearchIndexTableConfig tableConfig) {
+    	StringBuilder selectClauseBuilder = new StringBuilder();
+    	selectClauseBuilder.append("SELECT ").append(tableConfig.getTableName()).append(".").append(tableConfig.getKeyColName()).append(" as Record_ID, ");
+
+    	for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
+    		String columnSQL = getColumnSQL(tableConfig, columnConfig);
+    		if (columnSQL != null) {
+    			String columnAlias = columnConfig.getTableName() + "_" + columnConfig.getColumnName();
+    			selectClauseBuilder.append(columnSQL).append(" as ").append(columnAlias);
+    		}
+    		if (selectClauseBuilder.charAt(selectClauseBuilder.length() - 2) != ',') {
+    			selectClauseBuilder.append(", ");
+    		}
+    	}
+    	selectClauseBuilder.deleteCharAt(selectClauseBuilder.length() - 2);
+    	return selectClauseBuilder.toString();
+    }
+
+    /**
+     * Get the qualified column expression of an indexed column
+     * @param tableConfig
+     * @param columnConfig
+     * @return TableName.ColumnName or null if the column is not selectable
+     */
+    protected String getColumnSQL(SearchIndexTableConfig tableConfig, SearchIndexColumnConfig columnConfig) {
+    	if (Util.isEmpty(columnConfig.getColumnName()))
+    		return null;
+    	if (columnConfig.getTableId() == tableConfig.getTableId())
+    		return tableConfig.getTableName() + "." + columnConfig.getColumnName();
+    	if (Util.isEmpty(columnConfig.getTableName()))
+    		return null;
+    	return columnConfig.getTableName() + "." + columnConfig.getColumnName();
+    }
+
+    /**
+     * Get the source queries of the configured search index tables.
+     * The queries are executed by the provider on the database side,
+     * column values are not loaded into memory.
+     * @return source queries
+     */
+    public List<SearchIndexSourceQuery> getSourceQueries() {
+    	List<SearchIndexSourceQuery> sourceQueries = new ArrayList<>();
+    	List<SearchIndexConfig> configs = getSearchIndexConfigs();
+    	if (configs == null)
+    		return sourceQueries;
+
+    	for (SearchIndexConfig searchIndexConfig : configs) {
+    		for (SearchIndexTableConfig tableConfig : searchIndexConfig.getTableConfigs()) {
+
+    			if (tableId > 0 && tableId != tableConfig.getTableId())
+    				continue;
+
+    			List<Object> params = new ArrayList<>();
+    			String whereClause = getWhereClause(tableConfig, params);
+    			SearchIndexSourceQuery sourceQuery = new SearchIndexSourceQuery(searchIndexConfig.getSearchIndexId(), searchIndexConfig.getSearchIndexName(),
+    					tableConfig, tableConfig.getTableName() + "." + tableConfig.getKeyColName(), getFromClause(tableConfig), whereClause, params);
+    			for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
+    				String columnSQL = getColumnSQL(tableConfig, columnConfig);
+    				if (columnSQL != null)
+    					sourceQuery.addColumn(columnSQL, columnConfig.getSearchWeight());
+    			}
+    			sourceQueries.add(sourceQuery);
+    		}
+    	}
+    	return sourceQueries;
+    }
+
+    /**
+     * Get the FROM clause - main table with LEFT JOINs to the FK and lookup tables
+     * @param tableConfig
+     * @return FROM clause
+     */
+    protected String getFromClause(SearchIndexTableConfig tableConfig) {
+    	StringBuilder fromClauseBuilder = new StringBuilder();
+    	fromClauseBuilder.append(" FROM ").append(tableConfig.getTableName());
+
+    	Set<String> joinedTables = new HashSet<>();
+    	for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
+    		if (columnConfig.getTableId() == tableConfig.getTableId())
+    			continue;
+    		if (!joinedTables.contains(columnConfig.getTableName())) {
+    			fromClauseBuilder.append(" LEFT JOIN ").append(columnConfig.getTableName()).append(" ON ");
+    			if (!Util.isEmpty(columnConfig.getParentTableName()) && !tableConfig.getTableName().equals(columnConfig.getParentTableName())) {
+    				fromClauseBuilder.append(columnConfig.getParentTableName());
+    			} else {
+    				fromClauseBuilder.append(tableConfig.getTableName());
+    			}
+    			fromClauseBuilder.append(".").append(columnConfig.getParentColumnName());
+    			fromClauseBuilder.append(" = ").append(columnConfig.getTableName()).append(".").append(columnConfig.getColumnName());
+    			joinedTables.add(columnConfig.getTableName());
+    		}
+    	}
+    	return fromClauseBuilder.toString();
+    }
+
+    /**
+     * Get the WHERE clause - client, active flag, configured where clause and optional record filter
+     * @param tableConfig
+     * @param params - query parameters (out)
+     * @return WHERE clause
+     */
+    protected String getWhereClause(SearchIndexTableConfig tableConfig, List<Object> params) {
+    	return getWhereClause(tableConfig, params, updatedSince);
+    }
+
+    /**
+     * Get the WHERE clause
+     * @param tableConfig
+     * @param params - query parameters (out)
+     * @param updatedSince - only records changed after this time, null for all records
+     * @return WHERE clause
+     */
+    private String getWhereClause(SearchIndexTableConfig tableConfig, List<Object> params, Timestamp updatedSince) {
+    	StringBuilder whereClauseBuilder = new StringBuilder();
+    	whereClauseBuilder.append(" WHERE ").append(tableConfig.getTableName()).append(".AD_Client_ID = ? AND ").append(tableConfig.getTableName()).append(".IsActive = 'Y' ");
+    	params.add(Env.getAD_Client_ID(ctx));
+    	String dynamicWhere = tableConfig.getSqlWhere();
+    	if (!Util.isEmpty(dynamicWhere)) {
+    		// Validate WHERE clause to prevent SQL injection
+    		SearchIndexSecurityValidator.validateWhereClause(dynamicWhere);
+    		if (!dynamicWhere.trim().toUpperCase().startsWith("AND")) {
+    			whereClauseBuilder.append("AND ");
+    		}
+    		whereClauseBuilder.append(dynamicWhere);
+    		whereClauseBuilder.append(" ");
+    	}
+    	if (recordId > 0) {
+    		whereClauseBuilder.append(" AND ").append(tableConfig.getTableName()).append(".").append(tableConfig.getKeyColName()).append(" = ? ");
+    		params.add(recordId);
+    	}
+    	if (recordIds != null && recordIds.length > 0) {
+    		// a chunk may exceed the IN list limit of Oracle
+    		List<Integer> recordIdList = new ArrayList<>(recordIds.length);
+    		for (int id : recordIds)
+    			recordIdList.add(id);
+    		whereClauseBuilder.append(" AND ");
+    		SearchIndexUtils.appendInList(whereClauseBuilder, tableConfig.getTableName() + "." + tableConfig.getKeyColName(), recordIdList, params);
+    		whereClauseBuilder.append(" ");
+    	}
+    	if (fromKey > 0) {
+    		whereClauseBuilder.append(" AND ").append(tableConfig.getTableName()).append(".").append(tableConfig.getKeyColName()).append(" >= ? ");
+    		params.add(fromKey);
+    	}
+    	if (toKey > 0) {
+    		whereClauseBuilder.append(" AND ").append(tableConfig.getTableName()).append(".").append(tableConfig.getKeyColName()).append(" < ? ");
+    		params.add(toKey);
+    	}
+    	if (updatedSince != null) {
+    		// generated from the dictionary, not validated as the dynamic where clause
+    		whereClauseBuilder.append(" AND (").append(tableConfig.getTableName()).append(".Updated > ?");
+    		params.add(updatedSince);
+    		for (String joinedTableName : getJoinedTableNames(tableConfig)) {
+    			whereClauseBuilder.append(" OR ").append(joinedTableName).append(".Updated > ?");
+    			params.add(updatedSince);
+    		}
+    		whereClauseBuilder.append(") ");
+    	}
+    	return whereClauseBuilder.toString();
+    }
+
+    /**
+     * Get the tables joined to the main table of a search index table
+     * @param tableConfig
+     * @return joined table names
+     */
+    private Set<String> getJoinedTableNames(SearchIndexTableConfig tableConfig) {
+    	Set<String> joinedTables = new LinkedHashSet<>();
+    	for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
+    		if (columnConfig.getTableId() != tableConfig.getTableId() && !Util.isEmpty(columnConfig.getTableName()))
+    			joinedTables.add(columnConfig.getTableName());
+    	}
+    	return joinedTables;
+    }
+
+    /**
+     * Get the query selecting the keys of all records of a search index table,
+     * regardless of {@link #setUpdatedSince(Timestamp)}
+     * @param tableConfig
+     * @param params - query parameters (out)
+     * @return SELECT statement
+     */
+    public String getKeyQuery(SearchIndexTableConfig tableConfig, List<Object> params) {
+    	return "SELECT " + tableConfig.getTableName() + "." + tableConfig.getKeyColName()
+    			+ getFromClause(tableConfig) + getWhereClause(tableConfig, params, null);
+    }
+
+    /**
+     * Split the records of a search index table into key ranges of about the same size
+     * (ntile over the main key column).
+     * @param tableConfig
+     * @param partitions - number of ranges
+     * @return ascending first keys of the ranges, the first range is open to lower keys,
+     * a range ends where the next one starts and the last one is open to higher keys
+     */
+    public List<Integer> getKeyRangeStarts(SearchIndexTableConfig tableConfig, int partitions) {
+    	List<Integer> rangeStarts = new ArrayList<>();
+    	String keyColumn = tableConfig.getTableName() + "." + tableConfig.getKeyColName();
+    	List<Object> params = new ArrayList<>();
+    	params.add(partitions);
+    	String sql = "SELECT MIN(Record_ID) FROM (SELECT " + keyColumn + " AS Record_ID, ntile(?) OVER (ORDER BY " + keyColumn + ") AS Bucket"
+    			+ getFromClause(tableConfig) + getWhereClause(tableConfig, params) + ") ranges GROUP BY Bucket ORDER BY 1";
+
+    	PreparedStatement pstmt = null;
+    	ResultSet rs = null;
+    	try {
+    		pstmt = DB.prepareStatement(sql, trxName);
+    		for (int i = 0; i < params.size(); i++) {
+    			pstmt.setObject(i + 1, params.get(i));
+    		}
+    		rs = pstmt.executeQuery();
+    		while (rs.next()) {
+    			rangeStarts.add(rs.getInt(1));
+    		}
+    	} catch (SQLException e) {
+    		log.log(Level.SEVERE, sql, e);
+    		throw new AdempiereException(e.getMessage());
+    	} finally {
+    		DB.close(rs, pstmt);
+    	}
+    	return rangeStarts;
+    }
+
+    /**
+     * Read the indexed column values of the current row
+     * @param rs
+     * @param tableConfig
+     * @return column data, key is TableName.ColumnName
+     * @throws SQLException
+     */
+    protected Map<String, SearchIndexColumnData> getColumnData(ResultSet rs, SearchIndexTableConfig tableConfig) throws SQLException {
+    	Map<String, SearchIndexColumnData> data = new LinkedHashMap<>();
+    	data.put("Record_ID", new SearchIndexColumnData("Record_ID", rs.getObject("Record_ID"), Env.ONE, tableConfig.getMaxSearchWeight()));
+    	for (SearchIndexColumnConfig columnConfig : tableConfig.getColumns()) {
+    		if (!Util.isEmpty(columnConfig.getColumnName())) {
+    			String key = columnConfig.getTableName() + "." + columnConfig.getColumnName();
+    			String columnAlias = columnConfig.getTableName() + "_" + columnConfig.getColumnName();
+    			data.put(key, new SearchIndexColumnData(key, rs.getObject(columnAlias), columnConfig.getSearchWeight(), tableConfig.getMaxSearchWeight()));
+    		}
+    	}
+    	return data;
+    }
+
+    /**
+     * Get Search Index Configs, loads them if not loaded yet
+     * @return
+     */
+    public List<SearchIndexConfig> getSearchIndexConfigs() {
+    	if (searchIndexConfigs == null || searchIndexConfigs.isEmpty()) {
+    		try {
+    			loadSearchIndexConfig();
+    		} catch (SQLException e) {
+    			log.log(Level.SEVERE, "Error loading Search Index Config", e);
+    		}
+    	}
+    	return searchIndexConfigs;
+    }
 	
 	/**
 	 * Get the lookup key column name
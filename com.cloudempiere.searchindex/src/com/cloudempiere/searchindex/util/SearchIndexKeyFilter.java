@@ -0,0 +1,560 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.util;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.adempiere.base.IServiceHolder;
+import org.adempiere.base.Service;
+import org.adempiere.exceptions.DBException;
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Trx;
+import org.compiere.util.TrxEventListener;
+import org.idempiere.distributed.IClusterService;
+
+/**
+ *
+ * In-memory pre-check of the records contained in the search index tables, used by
+ * {@link com.cloudempiere.searchindex.model.MSearchIndex#containsRecord} before querying the index table.<br>
+ * A {@link SearchIndexBloomFilter} is kept per index table, built in the background when
+ * the event handler starts. The provider reports every record it writes, the keys are added when the
+ * transaction commits. Writes without keys, e.g. a set-based reindex, invalidate the filter: it answers
+ * nothing until it is rebuilt.<br>
+ * The filter only sees the writes of this server, it answers only while this server is the single node
+ * of the cluster. When other nodes join, the filters are invalidated and rebuilt after they left.<br>
+ * A filter is also rebuilt every SEARCH_INDEX_BLOOM_FILTER_REBUILD_INTERVAL minutes (removed keys, growth)
+ * and when a reindex changed AD_SearchIndex.DateLastRun. Records above the highest Record_ID of their table
+ * seen by the last rebuild are always checked in the database.<br>
+ * Each rebuild logs at INFO the memory and expected false positive rate of the new filter and the
+ * false positive rate observed by the lookups of the replaced one.
+ * Enabled by SysConfig SEARCH_INDEX_BLOOM_FILTER.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexKeyFilter {
+
+	/**	Logger */
+	private static final CLogger log = CLogger.getCLogger(SearchIndexKeyFilter.class);
+
+	/** Keep the Bloom filters of the index tables */
+	public static final String SYSCONFIG_BLOOM_FILTER = "SEARCH_INDEX_BLOOM_FILTER";
+	/** Bits per indexed record, 10 gives about 1% false positives */
+	public static final String SYSCONFIG_BLOOM_FILTER_BITS_PER_KEY = "SEARCH_INDEX_BLOOM_FILTER_BITS_PER_KEY";
+	/** Minutes between two rebuilds of a filter */
+	public static final String SYSCONFIG_BLOOM_FILTER_REBUILD_INTERVAL = "SEARCH_INDEX_BLOOM_FILTER_REBUILD_INTERVAL";
+
+	/** Keys kept per index table and transaction, more invalidate the filter at the commit */
+	private static final int MAX_TRX_KEYS = 100000;
+
+	/** Filters, key is the lower case index table name */
+	private static final Map<String, Entry> s_filters = new ConcurrentHashMap<>();
+	/** Rebuild thread, null if not started */
+	private static ScheduledExecutorService s_executor = null;
+	/** Index tables to keep a filter for */
+	private static volatile Set<String> s_tableNames = Set.of();
+	/** Keys written by the open transactions, key is the transaction name */
+	private static final Map<String, TrxKeys> s_trxKeys = new ConcurrentHashMap<>();
+	/** This server is the single node of the cluster, the filters see all writes */
+	private static volatile boolean s_isSingleNode = true;
+
+	/**
+	 * Start keeping the filters of the index tables, the filters are built in the background
+	 * @param indexTableNames - AD_SearchIndex.SearchIndexName
+	 */
+	public static synchronized void start(Collection<String> indexTableNames) {
+		if (!MSysConfig.getBooleanValue(SYSCONFIG_BLOOM_FILTER, false, 0))
+			return;
+		Set<String> tableNames = new LinkedHashSet<>();
+		for (String indexTableName : indexTableNames)
+			tableNames.add(indexTableName.toLowerCase());
+		s_tableNames = tableNames;
+		for (Iterator<Entry> it = s_filters.values().iterator(); it.hasNext(); ) {
+			Entry entry = it.next();
+			if (!tableNames.contains(entry.tableName))
+				it.remove();
+		}
+		for (String tableName : tableNames)
+			s_filters.computeIfAbsent(tableName, Entry::new);
+		if (s_executor == null) {
+			s_executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "SearchIndexKeyFilter");
+				thread.setDaemon(true);
+				return thread;
+			});
+			s_executor.scheduleWithFixedDelay(SearchIndexKeyFilter::refresh, 0, 1, TimeUnit.MINUTES);
+		} else {
+			s_executor.execute(SearchIndexKeyFilter::refresh);
+		}
+	}
+
+	/**
+	 * Stop the rebuilds and drop the filters
+	 */
+	public static synchronized void stop() {
+		if (s_executor != null) {
+			s_executor.shutdownNow();
+			s_executor = null;
+		}
+		s_tableNames = Set.of();
+		s_filters.clear();
+	}
+
+	/**
+	 * Check if an index table may contain a record
+	 * @param clientId - AD_Client_ID
+	 * @param tableId - AD_Table_ID
+	 * @param recordId - Record_ID
+	 * @param indexTableName - AD_SearchIndex.SearchIndexName
+	 * @param trxName - transaction of the lookup, its uncommitted writes are not in the filter
+	 * @return false if not contained, true if it may be contained, null if the filter can not tell
+	 */
+	public static Boolean mightContain(int clientId, int tableId, int recordId, String indexTableName, String trxName) {
+		if (s_filters.isEmpty() || !isSingleNode())
+			return null;
+		String tableName = indexTableName.toLowerCase();
+		TrxKeys trxKeys = trxName != null ? s_trxKeys.get(trxName) : null;
+		if (trxKeys != null && trxKeys.isWritten(tableName))
+			return null;
+		Entry entry = s_filters.get(tableName);
+		Snapshot current = entry != null ? entry.current : null;
+		if (current == null || current.built <= entry.staleSince || recordId > current.watermarks.getOrDefault(tableId, 0))
+			return null;
+		if (current.filter.mightContain(clientId, tableId, recordId)) {
+			entry.positiveCount.incrementAndGet();
+			return Boolean.TRUE;
+		}
+		entry.negativeCount.incrementAndGet();
+		return Boolean.FALSE;
+	}
+
+	/**
+	 * Count a record reported by {@link #mightContain} but not found in the index table
+	 * @param indexTableName - AD_SearchIndex.SearchIndexName
+	 */
+	public static void addFalsePositive(String indexTableName) {
+		Entry entry = s_filters.get(indexTableName.toLowerCase());
+		if (entry != null)
+			entry.falsePositiveCount.incrementAndGet();
+	}
+
+	/**
+	 * Add a record written to an index table, added when the transaction commits
+	 * @param indexTableName - AD_SearchIndex.SearchIndexName
+	 * @param clientId - AD_Client_ID
+	 * @param tableId - AD_Table_ID
+	 * @param recordId - Record_ID
+	 * @param trxName - transaction of the write
+	 */
+	public static void put(String indexTableName, int clientId, int tableId, int recordId, String trxName) {
+		if (s_filters.isEmpty())
+			return;
+		Trx trx = trxName != null ? Trx.get(trxName, false) : null;
+		if (trx != null)
+			getTrxKeys(trx).add(indexTableName.toLowerCase(), clientId, tableId, recordId);
+		else
+			addCommitted(indexTableName.toLowerCase(), Collections.singletonList(new int[] {clientId, tableId, recordId}));
+	}
+
+	/**
+	 * Invalidate the filter of an index table written without reporting the keys,
+	 * at once and again when the transaction commits. The filter answers nothing until it is rebuilt.
+	 * @param indexTableName - AD_SearchIndex.SearchIndexName
+	 * @param trxName - transaction of the write
+	 */
+	public static void invalidate(String indexTableName, String trxName) {
+		if (s_filters.isEmpty())
+			return;
+		String tableName = indexTableName.toLowerCase();
+		Entry entry = s_filters.get(tableName);
+		if (entry != null)
+			entry.invalidate();
+		Trx trx = trxName != null ? Trx.get(trxName, false) : null;
+		if (trx != null)
+			getTrxKeys(trx).invalidate(tableName);
+		else
+			invalidateCommitted(tableName);
+	}
+
+	/**
+	 * Get the keys written by a transaction, registered as listener of the transaction
+	 * @param trx
+	 * @return keys of the transaction
+	 */
+	private static TrxKeys getTrxKeys(Trx trx) {
+		return s_trxKeys.computeIfAbsent(trx.getTrxName(), key -> {
+			TrxKeys trxKeys = new TrxKeys();
+			trx.addTrxEventListener(trxKeys);
+			return trxKeys;
+		});
+	}
+
+	/**
+	 * Add committed keys to the filter
+	 * @param tableName - lower case index table name
+	 * @param keys - AD_Client_ID, AD_Table_ID and Record_ID
+	 */
+	private static void addCommitted(String tableName, List<int[]> keys) {
+		Entry entry = s_filters.get(tableName);
+		if (entry == null)
+			return;
+		for (int[] key : keys)
+			entry.put(key[0], key[1], key[2]);
+	}
+
+	/**
+	 * Invalidate the filter after the commit of writes without keys
+	 * @param tableName - lower case index table name
+	 */
+	private static void invalidateCommitted(String tableName) {
+		Entry entry = s_filters.get(tableName);
+		if (entry == null)
+			return;
+		entry.invalidate();
+		scheduleRefresh();
+	}
+
+	/**
+	 * Check if this server is the single node of the cluster, the writes of other nodes are not in the filters.
+	 * The filters are invalidated when the cluster changes between one and more nodes.
+	 * @return true without a cluster service or with a single member
+	 */
+	private static boolean isSingleNode() {
+		IClusterService clusterService = null;
+		try {
+			IServiceHolder<IClusterService> holder = Service.locator().locate(IClusterService.class);
+			clusterService = holder != null ? holder.getService() : null;
+		} catch (Exception e) {
+			// not running in OSGi, e.g. unit tests
+		}
+		boolean isSingleNode = clusterService == null || clusterService.getMembers().size() <= 1;
+		if (isSingleNode != s_isSingleNode) {
+			s_isSingleNode = isSingleNode;
+			for (Entry entry : s_filters.values())
+				entry.invalidate();
+			if (isSingleNode)
+				scheduleRefresh();
+			if (log.isLoggable(Level.INFO))
+				log.info(isSingleNode ? "Single cluster node, Bloom filters are rebuilt" : "Cluster with other nodes, Bloom filters are not used");
+		}
+		return isSingleNode;
+	}
+
+	/**
+	 * Run the rebuilds of the invalidated filters without waiting for the next minute
+	 */
+	private static synchronized void scheduleRefresh() {
+		if (s_executor != null)
+			s_executor.execute(SearchIndexKeyFilter::refresh);
+	}
+
+	/**
+	 * Get the size and false positive rate of the filters
+	 * @return statistics as text, one line per index table
+	 */
+	public static String getStatistics() {
+		StringBuilder statistics = new StringBuilder();
+		for (Entry entry : s_filters.values()) {
+			if (statistics.length() > 0)
+				statistics.append("\n");
+			statistics.append(entry);
+		}
+		return statistics.toString();
+	}
+
+	/**
+	 * Rebuild the filters not built, expired or of a reindexed index table
+	 */
+	private static void refresh() {
+		// the filters are not used while other nodes write
+		if (!isSingleNode())
+			return;
+		long interval = TimeUnit.MINUTES.toMillis(Math.max(1, MSysConfig.getIntValue(SYSCONFIG_BLOOM_FILTER_REBUILD_INTERVAL, 60, 0)));
+		for (String tableName : s_tableNames) {
+			if (Thread.currentThread().isInterrupted())
+				return;
+			Entry entry = s_filters.get(tableName);
+			if (entry == null)
+				continue;
+			try {
+				Timestamp lastRun = DB.getSQLValueTSEx(null, "SELECT MAX(DateLastRun) FROM AD_SearchIndex WHERE LOWER(SearchIndexName)=?", tableName);
+				Snapshot current = entry.current;
+				if (current == null || current.built <= entry.staleSince || System.currentTimeMillis() - current.built > interval
+						|| !Objects.equals(lastRun, current.lastRun))
+					entry.rebuild(lastRun);
+			} catch (Exception e) {
+				// e.g. index of a provider without index table, not retried until the next start
+				s_filters.remove(tableName, entry);
+				log.log(Level.WARNING, "Failed to build the Bloom filter of " + tableName, e);
+			}
+		}
+		if (log.isLoggable(Level.FINE))
+			log.fine(getStatistics());
+	}
+
+	/**
+	 * Filter of an index table with its statistics
+	 */
+	private static class Entry {
+
+		/** Lower case index table name */
+		private final String tableName;
+		/** Filter used for the lookups, null while not built */
+		private volatile Snapshot current = null;
+		/** Filter being built, receives the writes during the rebuild */
+		private volatile Snapshot next = null;
+		/** Time of the last invalidation, filters built before are not used */
+		private volatile long staleSince = 0;
+		/** Lookups answered as maybe contained */
+		private final AtomicLong positiveCount = new AtomicLong();
+		/** Lookups answered as not contained */
+		private final AtomicLong negativeCount = new AtomicLong();
+		/** Maybe contained but not found in the index table */
+		private final AtomicLong falsePositiveCount = new AtomicLong();
+
+		private Entry(String tableName) {
+			this.tableName = tableName;
+		}
+
+		/**
+		 * Add a committed key
+		 * @param clientId
+		 * @param tableId
+		 * @param recordId
+		 */
+		private void put(int clientId, int tableId, int recordId) {
+			// next before current, a rebuild publishes current before clearing next
+			Snapshot nextSnapshot = next;
+			Snapshot currentSnapshot = current;
+			if (currentSnapshot != null)
+				currentSnapshot.filter.put(clientId, tableId, recordId);
+			if (nextSnapshot != null)
+				nextSnapshot.filter.put(clientId, tableId, recordId);
+		}
+
+		/**
+		 * Stop using the filter until it is rebuilt
+		 */
+		private void invalidate() {
+			staleSince = System.currentTimeMillis();
+		}
+
+		/**
+		 * Build the filter from the index table, the writes are added to both filters meanwhile
+		 * @param lastRun - AD_SearchIndex.DateLastRun at the start of the rebuild
+		 */
+		private void rebuild(Timestamp lastRun) {
+			long start = System.currentTimeMillis();
+			int count = DB.getSQLValueEx(null, "SELECT COUNT(*) FROM " + tableName);
+			int bitsPerKey = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_BLOOM_FILTER_BITS_PER_KEY, 10, 0));
+			// room for the records indexed until the next rebuild
+			Snapshot building = new Snapshot(new SearchIndexBloomFilter(count + count / 4 + 1024, bitsPerKey), lastRun);
+			next = building;
+
+			Trx trx = Trx.get(Trx.createTrxName("SearchIdxBloom"), true);
+			String sql = "SELECT AD_Client_ID, AD_Table_ID, Record_ID FROM " + tableName;
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try {
+				pstmt = DB.prepareStatement(sql, trx.getTrxName());
+				pstmt.setFetchSize(10000);
+				rs = pstmt.executeQuery();
+				while (rs.next()) {
+					int tableId = rs.getInt(2);
+					int recordId = rs.getInt(3);
+					building.filter.put(rs.getInt(1), tableId, recordId);
+					building.watermarks.merge(tableId, recordId, Math::max);
+				}
+				current = building;
+			} catch (SQLException e) {
+				throw new DBException(e, sql);
+			} finally {
+				DB.close(rs, pstmt);
+				trx.close();
+				next = null;
+			}
+			// the lookups of the replaced filter, the counters restart with the new one
+			String replacedLookups = getLookupStatistics();
+			positiveCount.set(0);
+			negativeCount.set(0);
+			falsePositiveCount.set(0);
+			if (log.isLoggable(Level.INFO))
+				log.info("Built Bloom filter of " + count + " records in " + (System.currentTimeMillis() - start) + "ms: " + tableName + ": "
+						+ getFilterStatistics(building) + ", replaced filter observed " + replacedLookups);
+		}
+
+		/**
+		 * Get the size and expected false positive rate of a filter
+		 * @param snapshot
+		 * @return statistics as text
+		 */
+		private String getFilterStatistics(Snapshot snapshot) {
+			return (snapshot.filter.getMemoryBytes() >>> 10) + " KB, " + snapshot.filter.getHashCount() + " hashes, expected FPP "
+					+ String.format("%.3f%%", snapshot.filter.getExpectedFpp() * 100);
+		}
+
+		/**
+		 * Get the false positive rate observed by the lookups since the last rebuild
+		 * @return statistics as text
+		 */
+		private String getLookupStatistics() {
+			long positives = positiveCount.get();
+			long negatives = negativeCount.get();
+			long falsePositives = falsePositiveCount.get();
+			// false positives among the lookups of records not contained
+			double observedFpp = falsePositives + negatives > 0 ? (double) falsePositives / (falsePositives + negatives) : 0;
+			return "FPP " + String.format("%.3f%%", observedFpp * 100)
+					+ " (" + negatives + " lookups skipped, " + positives + " checked)";
+		}
+
+		@Override
+		public String toString() {
+			Snapshot snapshot = current;
+			if (snapshot == null)
+				return tableName + ": not built";
+			if (snapshot.built <= staleSince)
+				return tableName + ": invalidated";
+			return tableName + ": " + getFilterStatistics(snapshot) + ", observed " + getLookupStatistics();
+		}
+	}
+
+	/**
+	 * Filter built from an index table
+	 */
+	private static class Snapshot {
+
+		/** Keys of the index table */
+		private final SearchIndexBloomFilter filter;
+		/** Highest Record_ID seen by the build, key is AD_Table_ID */
+		private final Map<Integer, Integer> watermarks = new HashMap<>();
+		/** AD_SearchIndex.DateLastRun at the start of the build */
+		private final Timestamp lastRun;
+		/** Start of the build */
+		private final long built = System.currentTimeMillis();
+
+		private Snapshot(SearchIndexBloomFilter filter, Timestamp lastRun) {
+			this.filter = filter;
+			this.lastRun = lastRun;
+		}
+	}
+
+	/**
+	 * Keys written by a transaction, added to the filters when the transaction commits
+	 */
+	private static class TrxKeys implements TrxEventListener {
+
+		/** Keys per lower case index table name */
+		private final Map<String, List<int[]>> keys = new HashMap<>();
+		/** Index tables written without keys */
+		private final Set<String> invalidated = new HashSet<>();
+
+		/**
+		 * Add a written key
+		 * @param tableName - lower case index table name
+		 * @param clientId
+		 * @param tableId
+		 * @param recordId
+		 */
+		private synchronized void add(String tableName, int clientId, int tableId, int recordId) {
+			if (invalidated.contains(tableName))
+				return;
+			List<int[]> tableKeys = keys.computeIfAbsent(tableName, key -> new ArrayList<>());
+			if (tableKeys.size() >= MAX_TRX_KEYS)
+				invalidate(tableName);
+			else
+				tableKeys.add(new int[] {clientId, tableId, recordId});
+		}
+
+		/**
+		 * Check if the transaction wrote into an index table
+		 * @param tableName - lower case index table name
+		 * @return true if written
+		 */
+		private synchronized boolean isWritten(String tableName) {
+			return keys.containsKey(tableName) || invalidated.contains(tableName);
+		}
+
+		/**
+		 * Add a write without keys
+		 * @param tableName - lower case index table name
+		 */
+		private synchronized void invalidate(String tableName) {
+			keys.remove(tableName);
+			invalidated.add(tableName);
+		}
+
+		@Override
+		public void afterCommit(Trx trx, boolean success) {
+			Map<String, List<int[]>> committedKeys;
+			Set<String> committedInvalidated;
+			synchronized (this) {
+				committedKeys = new HashMap<>(keys);
+				committedInvalidated = new HashSet<>(invalidated);
+				keys.clear();
+				invalidated.clear();
+			}
+			if (!success)
+				return;
+			for (String tableName : committedInvalidated)
+				invalidateCommitted(tableName);
+			for (Map.Entry<String, List<int[]>> tableKeys : committedKeys.entrySet())
+				addCommitted(tableKeys.getKey(), tableKeys.getValue());
+		}
+
+		@Override
+		public synchronized void afterRollback(Trx trx, boolean success) {
+			keys.clear();
+			invalidated.clear();
+		}
+
+		@Override
+		public void afterClose(Trx trx) {
+			s_trxKeys.remove(trx.getTrxName());
+			synchronized (this) {
+				keys.clear();
+				invalidated.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.util;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.adempiere.exceptions.DBException;
+import org.compiere.util.DB;
+
+/**
+ *
+ * Checkpoints of a resumable search index rebuild, stored in T_SearchIndex_Progress.<br>
+ * A row per search index table holds the last indexed Record_ID, rows exist only
+ * while the rebuild of the search index is not finished.
+ *
+ * @author Peter Takacs, Cloudempiere
+ *
+ */
+public class SearchIndexProgress {
+
+	/** Progress table */
+	public static final String TABLE_NAME = "T_SearchIndex_Progress";
+
+	/** AD_Client_ID */
+	private final int clientId;
+	/** AD_SearchIndex_ID */
+	private final int searchIndexId;
+	/** Transaction */
+	private final String trxName;
+	/** Checkpoints, key is AD_Table_ID, value is the last indexed Record_ID */
+	private final Map<Integer, Integer> checkpoints = new HashMap<>();
+	/** Completed tables, key is AD_Table_ID */
+	private final Map<Integer, Boolean> completed = new HashMap<>();
+
+	/**
+	 * Load the checkpoints of a search index
+	 * @param clientId - AD_Client_ID
+	 * @param searchIndexId - AD_SearchIndex_ID
+	 * @param trxName
+	 */
+	public SearchIndexProgress(int clientId, int searchIndexId, String trxName) {
+		this.clientId = clientId;
+		this.searchIndexId = searchIndexId;
+		this.trxName = trxName;
+		load();
+	}
+
+	/**
+	 * Load the checkpoints
+	 */
+	private void load() {
+		String sql = "SELECT AD_Table_ID, Last_Record_ID, IsCompleted FROM " + TABLE_NAME + " WHERE AD_Client_ID=? AND AD_SearchIndex_ID=?";
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = DB.prepareStatement(sql, trxName);
+			pstmt.setInt(1, clientId);
+			pstmt.setInt(2, searchIndexId);
+			rs = pstmt.executeQuery();
+			while (rs.next()) {
+				checkpoints.put(rs.getInt(1), rs.getInt(2));
+				completed.put(rs.getInt(1), "Y".equals(rs.getString(3)));
+			}
+		} catch (SQLException e) {
+			throw new DBException(e, sql);
+		} finally {
+			DB.close(rs, pstmt);
+		}
+	}
+
+	/**
+	 * Check if an interrupted rebuild of the search index can be resumed
+	 * @return true if checkpoints exist
+	 */
+	public boolean isResumable() {
+		return !checkpoints.isEmpty();
+	}
+
+	/**
+	 * Start a new rebuild, every table starts from the beginning
+	 * @param tableIds - AD_Table_ID of the search index tables
+	 */
+	public void start(Iterable<Integer> tableIds) {
+		DB.executeUpdateEx("DELETE FROM " + TABLE_NAME + " WHERE AD_Client_ID=? AND AD_SearchIndex_ID=?", new Object[] {clientId, searchIndexId}, trxName);
+		checkpoints.clear();
+		completed.clear();
+		for (int tableId : tableIds) {
+			DB.executeUpdateEx("INSERT INTO " + TABLE_NAME + " (AD_Client_ID, AD_SearchIndex_ID, AD_Table_ID, Last_Record_ID, IsCompleted, Updated) VALUES (?,?,?,0,'N',getDate())",
+					new Object[] {clientId, searchIndexId, tableId}, trxName);
+			checkpoints.put(tableId, 0);
+			completed.put(tableId, Boolean.FALSE);
+		}
+	}
+
+	/**
+	 * Get the last indexed record of a table
+	 * @param tableId - AD_Table_ID
+	 * @return Record_ID, 0 if the table was not started
+	 */
+	public int getLastRecordId(int tableId) {
+		Integer lastRecordId = checkpoints.get(tableId);
+		return lastRecordId != null ? lastRecordId : 0;
+	}
+
+	/**
+	 * Check if a table is completely indexed
+	 * @param tableId - AD_Table_ID
+	 * @return true if completed
+	 */
+	public boolean isCompleted(int tableId) {
+		return Boolean.TRUE.equals(completed.get(tableId));
+	}
+
+	/**
+	 * Save the last indexed record of a table, committed with the indexed chunk
+	 * @param tableId - AD_Table_ID
+	 * @param lastRecordId - Record_ID
+	 */
+	public void saveCheckpoint(int tableId, int lastRecordId) {
+		update(tableId, lastRecordId, false);
+	}
+
+	/**
+	 * Mark a table as completely indexed
+	 * @param tableId - AD_Table_ID
+	 */
+	public void complete(int tableId) {
+		update(tableId, getLastRecordId(tableId), true);
+	}
+
+	/**
+	 * Remove the checkpoints after the rebuild of the search index is finished
+	 */
+	public void finish() {
+		DB.executeUpdateEx("DELETE FROM " + TABLE_NAME + " WHERE AD_Client_ID=? AND AD_SearchIndex_ID=?", new Object[] {clientId, searchIndexId}, trxName);
+		checkpoints.clear();
+		completed.clear();
+	}
+
+	/**
+	 * Update the checkpoint row of a table
+	 * @param tableId
+	 * @param lastRecordId
+	 * @param isCompleted
+	 */
+	private void update(int tableId, int lastRecordId, boolean isCompleted) {
+		String sql = "UPDATE " + TABLE_NAME + " SET Last_Record_ID=?, IsCompleted=?, Updated=getDate() WHERE AD_Client_ID=? AND AD_SearchIndex_ID=? AND AD_Table_ID=?";
+		int no = DB.executeUpdateEx(sql, new Object[] {lastRecordId, isCompleted ? "Y" : "N", clientId, searchIndexId, tableId}, trxName);
+		if (no == 0) {
+			DB.executeUpdateEx("INSERT INTO " + TABLE_NAME + " (AD_Client_ID, AD_SearchIndex_ID, AD_Table_ID, Last_Record_ID, IsCompleted, Updated) VALUES (?,?,?,?,?,getDate())",
+					new Object[] {clientId, searchIndexId, tableId, lastRecordId, isCompleted ? "Y" : "N"}, trxName);
+		}
+		checkpoints.put(tableId, lastRecordId);
+		completed.put(tableId, isCompleted);
+	}
+}
@@ -26,6 +26,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -34,6 +35,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.logging.Level;
 
+import org.adempiere.exceptions.DBException;
 import org.adempiere.util.IProcessUI;
 import org.compiere.util.CLogger;
 import org.compiere.util.DB;
@@ -55,6 +57,12 @@ public class SearchIndexUtils {
 
 	/** Logger */
 	private static final CLogger log = CLogger.getCLogger(SearchIndexUtils.class);
+
+	/** Max number of values of an IN list, Oracle raises ORA-01795 above */
+	public static final int MAX_IN_LIST_SIZE = 1000;
+
+	/** AD_SearchIndexTable.IndexingPolicy exists (migration 202610161700_SearchIndexIndexingPolicy.sql) */
+	private static volatile Boolean isIndexingPolicyColumn = null;
 	
 	/**
 	 * Get and initialise Search Index Providers by Client
@@ -150,7 +158,8 @@ public class SearchIndexUtils {
 	 */
 	public static Map<Integer, Set<IndexedTable>> getSearchIndexConfigs(String trxName, int clientId) {
 	    StringBuilder sql = new StringBuilder("SELECT sit.AD_SearchIndex_ID, t.TableName, mt.TableName, sit.WhereClause, si.SearchIndexName, ")
-	    	.append("COALESCE(refCol.AD_Column_ID, sic.AD_Column_ID) AS AD_Column_ID, si.AD_Client_ID, mt.AD_Table_ID ")
+	    	.append("COALESCE(refCol.AD_Column_ID, sic.AD_Column_ID) AS AD_Column_ID, si.AD_Client_ID, mt.AD_Table_ID, t.AD_Table_ID, ")
+	    	.append(isIndexingPolicyColumn() ? "sit.IndexingPolicy " : "'S' AS IndexingPolicy ")
 	    	.append("FROM AD_SearchIndexColumn sic ")
 	        .append("JOIN AD_SearchIndexTable sit ON sic.AD_SearchIndexTable_ID = sit.AD_SearchIndexTable_ID ")
 	        .append("JOIN AD_SearchIndex si ON si.AD_SearchIndex_ID = sit.AD_SearchIndex_ID ")
@@ -180,6 +189,8 @@ public class SearchIndexUtils {
 	        	int columnId = rs.getInt(6); // refCol.AD_Column_ID or sic.AD_Column_ID
 	        	int indexClientId = rs.getInt(7);
 	        	int mainTableId = rs.getInt(8);
+	        	int fkTableId = rs.getInt(9);
+	        	String indexingPolicy = rs.getString(10);
 
 	        	Set<IndexedTable> indexedTables = indexedTablesByClient.computeIfAbsent(indexClientId, k -> new HashSet<>());
 	        	
@@ -187,13 +198,15 @@ public class SearchIndexUtils {
 	                .filter(config -> (config.getSearchIndexId() == searchIndexId && config.getTableName().equals(mainTableName)))
 	                .findFirst()
 	                .orElseGet(() -> {
-	                	IndexedTable newIndexedTable = new IndexedTable(searchIndexId, searchIndexName, mainTableName, mainTableId, whereClause);
+	                	IndexedTable newIndexedTable = new IndexedTable(searchIndexId, searchIndexName, mainTableName, mainTableId, whereClause, indexingPolicy);
 	                	indexedTables.add(newIndexedTable);
 	                    return newIndexedTable;
 	                });
 	        	
-	        	if (!mainTableName.equals(fkTableName))
+	        	if (!mainTableName.equals(fkTableName)) {
 	        		indexedTable.addFKTableName(fkTableName);
+	        		indexedTable.addFKTableId(fkTableId);
+	        	}
 	        	
 	        	indexedTable.addColumnId(columnId);
 	        }
@@ -207,5 +220,46 @@ public class SearchIndexUtils {
 
 	    return indexedTablesByClient;
 	}
-}
 
+	/**
+	 * Check if AD_SearchIndexTable.IndexingPolicy exists, the tables are synchronous without it.
+	 * Probed once outside of the transaction, a failing statement would abort it.
+	 * The result is kept until the server restarts, as after running the migration script.
+	 * @return true if the column exists
+	 */
+	private static boolean isIndexingPolicyColumn() {
+		Boolean isColumn = isIndexingPolicyColumn;
+		if (isColumn != null)
+			return isColumn;
+		try {
+			DB.getSQLValueEx(null, "SELECT COUNT(*) FROM AD_SearchIndexTable WHERE IndexingPolicy IS NULL AND 1=2");
+			isColumn = Boolean.TRUE;
+		} catch (DBException e) {
+			isColumn = Boolean.FALSE;
+			log.warning("Column AD_SearchIndexTable.IndexingPolicy not found, all tables are indexed synchronously. Run migration script: 202610161700_SearchIndexIndexingPolicy.sql");
+		}
+		isIndexingPolicyColumn = isColumn;
+		return isColumn;
+	}
+
+	/**
+	 * Append an IN list condition, split into IN lists of {@link #MAX_IN_LIST_SIZE} values joined with OR
+	 * @param sql - query (in/out)
+	 * @param columnName - column, qualified if needed
+	 * @param values - values of the list, not empty
+	 * @param params - query parameters (out)
+	 */
+	public static void appendInList(StringBuilder sql, String columnName, Collection<?> values, List<Object> params) {
+		sql.append("(");
+		int count = 0;
+		for (Object value : values) {
+			if (count % MAX_IN_LIST_SIZE == 0)
+				sql.append(count > 0 ? ") OR " : "").append(columnName).append(" IN (?");
+			else
+				sql.append(",?");
+			params.add(value);
+			count++;
+		}
+		sql.append("))");
+	}
+}
@@ -0,0 +1,102 @@
+/**********************************************************************
+* Copyright (C) Contributors                                          *
+*                                                                     *
+* This program is free software; you can redistribute it and/or       *
+* modify it under the terms of the GNU General Public License         *
+* as published by the Free Software Foundation; either version 2      *
+* of the License, or (at your option) any later version.              *
+*                                                                     *
+* This program is distributed in the hope that it will be useful,     *
+* but WITHOUT ANY WARRANTY; without even the implied warranty of      *
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the        *
+* GNU General Public License for more details.                        *
+*                                                                     *
+* You should have received a copy of the GNU General Public License   *
+* along with this program; if not, write to the Free Software         *
+* Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,          *
+* MA 02110-1301, USA.                                                 *
+*                                                                     *
+* Contributors:                                                       *
+* - Peter Takacs, Cloudempiere                                        *
+**********************************************************************/
+package com.cloudempiere.searchindex.util.pojo;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source query of an AD_SearchIndexTable, compiled from {@link SearchIndexTableConfig}.
+ * Lets a provider index the table with a statement executed on the database side.
+ */
+public class SearchIndexSourceQuery {
+
+	/* AD_SearchIndex_ID */
+	private int searchIndexId;
+	/* SearchIndexName - index table */
+	private String searchIndexName;
+	/* Search Index Table */
+	private SearchIndexTableConfig tableConfig;
+	/* Key column expression, e.g. M_Product.M_Product_ID */
+	private String keyColumnSQL;
+	/* Indexed column expressions with their SearchWeight, in index order */
+	private Map<String, BigDecimal> columnWeights = new LinkedHashMap<>();
+	/* FROM clause including the LEFT JOINs */
+	private String fromClause;
+	/* WHERE clause */
+	private String whereClause;
+	/* WHERE clause parameters */
+	private List<Object> params;
+
+	public SearchIndexSourceQuery(int searchIndexId, String searchIndexName, SearchIndexTableConfig tableConfig,
+			String keyColumnSQL, String fromClause, String whereClause, List<Object> params) {
+		this.searchIndexId = searchIndexId;
+		this.searchIndexName = searchIndexName;
+		this.tableConfig = tableConfig;
+		this.keyColumnSQL = keyColumnSQL;
+		this.fromClause = fromClause;
+		this.whereClause = whereClause;
+		this.params = params;
+	}
+
+	public int getSearchIndexId() {
+		return searchIndexId;
+	}
+
+	public String getSearchIndexName() {
+		return searchIndexName;
+	}
+
+	public SearchIndexTableConfig getTableConfig() {
+		return tableConfig;
+	}
+
+	public String getKeyColumnSQL() {
+		return keyColumnSQL;
+	}
+
+	public Map<String, BigDecimal> getColumnWeights() {
+		return columnWeights;
+	}
+
+	public void addColumn(String columnSQL, BigDecimal searchWeight) {
+		columnWeights.put(columnSQL, searchWeight);
+	}
+
+	public String getFromClause() {
+		return fromClause;
+	}
+
+	public String getWhereClause() {
+		return whereClause;
+	}
+
+	public void setWhereClause(String whereClause) {
+		this.whereClause = whereClause;
+	}
+
+	public List<Object> getParams() {
+		return params;
+	}
+}
@@ -0,0 +1,8 @@
+-- Search index bulk load objects (Oracle)
+-- Migration Date: 2026-10-16 12:00
+-- Description:
+--   COPY-based bulk load (T_SearchIndex_Stage, searchindex_tsvector_agg) is
+--   specific to the PostgreSQL Text Search provider and not applicable to Oracle.
+--   The script is registered to keep the migration sequence aligned.
+
+SELECT register_migration_script('202610161200_SearchIndexBulkLoad.sql') FROM dual;
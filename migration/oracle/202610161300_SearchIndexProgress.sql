@@ -0,0 +1,30 @@
+-- Search index rebuild checkpoints (Oracle)
+-- Migration Date: 2026-10-16 13:00
+-- Description:
+--   Creates T_SearchIndex_Progress used by CreateSearchIndex when
+--   SysConfig SEARCH_INDEX_REINDEX_RESUMABLE=Y
+
+SELECT register_migration_script('202610161300_SearchIndexProgress.sql') FROM dual;
+
+SET SQLBLANKLINES ON
+SET DEFINE OFF
+
+DECLARE
+    v_count NUMBER;
+BEGIN
+    SELECT COUNT(*) INTO v_count FROM user_tables WHERE table_name = 'T_SEARCHINDEX_PROGRESS';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'CREATE TABLE T_SearchIndex_Progress ('
+            || 'AD_Client_ID NUMBER(10) NOT NULL, '
+            || 'AD_SearchIndex_ID NUMBER(10) NOT NULL, '
+            || 'AD_Table_ID NUMBER(10) NOT NULL, '
+            || 'Last_Record_ID NUMBER(10) DEFAULT 0 NOT NULL, '
+            || 'IsCompleted CHAR(1) DEFAULT ''N'' NOT NULL, '
+            || 'Updated DATE DEFAULT SYSDATE NOT NULL, '
+            || 'CONSTRAINT T_SearchIndex_Progress_Key PRIMARY KEY (AD_Client_ID, AD_SearchIndex_ID, AD_Table_ID))';
+        DBMS_OUTPUT.PUT_LINE('✓ Created T_SearchIndex_Progress');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Progress already exists, skipping creation');
+    END IF;
+END;
+/
@@ -0,0 +1,25 @@
+-- Search index last run for delta reindex (Oracle)
+-- Migration Date: 2026-10-16 14:00
+-- Description:
+--   Adds AD_SearchIndex.DateLastRun, set by CreateSearchIndex to the start
+--   of each successful run and used by the delta reindex.
+--   The dictionary (AD_Column DateLastRun with its AD_Field, AD_Process_Para
+--   IsDelta of CreateSearchIndex) ships in META-INF/2Pack_1.0.6.zip.
+
+SELECT register_migration_script('202610161400_SearchIndexDateLastRun.sql') FROM dual;
+
+SET SQLBLANKLINES ON
+SET DEFINE OFF
+
+DECLARE
+    v_count NUMBER;
+BEGIN
+    SELECT COUNT(*) INTO v_count FROM user_tab_columns WHERE table_name = 'AD_SEARCHINDEX' AND column_name = 'DATELASTRUN';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'ALTER TABLE AD_SearchIndex ADD DateLastRun DATE';
+        DBMS_OUTPUT.PUT_LINE('✓ Added AD_SearchIndex.DateLastRun');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ AD_SearchIndex.DateLastRun already exists, skipping');
+    END IF;
+END;
+/
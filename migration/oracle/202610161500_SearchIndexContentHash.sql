@@ -0,0 +1,8 @@
+-- Search index content hash (Oracle)
+-- Migration Date: 2026-10-16 15:00
+-- Description:
+--   The idx_hash column of the search index tables is specific to the
+--   PostgreSQL Text Search provider and not applicable to Oracle.
+--   The script is registered to keep the migration sequence aligned.
+
+SELECT register_migration_script('202610161500_SearchIndexContentHash.sql') FROM dual;
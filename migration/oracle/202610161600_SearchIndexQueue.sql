@@ -0,0 +1,30 @@
+-- Search index event queue (Oracle)
+-- Migration Date: 2026-10-16 16:00
+-- Description:
+--   Creates T_SearchIndex_Queue used when
+--   SysConfig SEARCH_INDEX_EVENT_QUEUE=Y
+
+SELECT register_migration_script('202610161600_SearchIndexQueue.sql') FROM dual;
+
+SET SQLBLANKLINES ON
+SET DEFINE OFF
+
+DECLARE
+    v_count NUMBER;
+BEGIN
+    SELECT COUNT(*) INTO v_count FROM user_tables WHERE table_name = 'T_SEARCHINDEX_QUEUE';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'CREATE TABLE T_SearchIndex_Queue ('
+            || 'T_SearchIndex_Queue_ID NUMBER(18) GENERATED BY DEFAULT AS IDENTITY NOT NULL, '
+            || 'AD_Client_ID NUMBER(10) NOT NULL, '
+            || 'AD_Table_ID NUMBER(10) NOT NULL, '
+            || 'Record_ID NUMBER(10) NOT NULL, '
+            || 'EventType CHAR(1) NOT NULL, '
+            || 'Created DATE DEFAULT SYSDATE NOT NULL, '
+            || 'CONSTRAINT T_SearchIndex_Queue_Key PRIMARY KEY (T_SearchIndex_Queue_ID))';
+        DBMS_OUTPUT.PUT_LINE('✓ Created T_SearchIndex_Queue');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Queue already exists, skipping creation');
+    END IF;
+END;
+/
@@ -0,0 +1,41 @@
+-- Search index indexing policy per table (Oracle)
+-- Migration Date: 2026-10-16 17:00
+-- Description:
+--   Adds AD_SearchIndexTable.IndexingPolicy (S = synchronous, A = asynchronous
+--   queue, D = deferred) and T_SearchIndex_Queue.IsDeferred
+--   Dictionary (AD_Column IndexingPolicy with its list reference, AD_Field,
+--   AD_Process UpdateDeferredSearchIndex) ships in META-INF/2Pack_1.0.6.zip
+
+SELECT register_migration_script('202610161700_SearchIndexIndexingPolicy.sql') FROM dual;
+
+SET SQLBLANKLINES ON
+SET DEFINE OFF
+
+DECLARE
+    v_count NUMBER;
+BEGIN
+    SELECT COUNT(*) INTO v_count FROM user_tab_columns WHERE table_name = 'AD_SEARCHINDEXTABLE' AND column_name = 'INDEXINGPOLICY';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'ALTER TABLE AD_SearchIndexTable ADD IndexingPolicy CHAR(1) DEFAULT ''S'' NOT NULL';
+        DBMS_OUTPUT.PUT_LINE('✓ Added AD_SearchIndexTable.IndexingPolicy');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ AD_SearchIndexTable.IndexingPolicy already exists, skipping');
+    END IF;
+
+    SELECT COUNT(*) INTO v_count FROM user_tab_columns WHERE table_name = 'T_SEARCHINDEX_QUEUE' AND column_name = 'ISDEFERRED';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'ALTER TABLE T_SearchIndex_Queue ADD IsDeferred CHAR(1) DEFAULT ''N'' NOT NULL';
+        DBMS_OUTPUT.PUT_LINE('✓ Added T_SearchIndex_Queue.IsDeferred');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Queue.IsDeferred already exists, skipping');
+    END IF;
+
+    SELECT COUNT(*) INTO v_count FROM user_indexes WHERE index_name = 'T_SEARCHINDEX_QUEUE_DEFERRED';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'CREATE INDEX T_SearchIndex_Queue_Deferred ON T_SearchIndex_Queue (IsDeferred, T_SearchIndex_Queue_ID)';
+        DBMS_OUTPUT.PUT_LINE('✓ Created index T_SearchIndex_Queue_Deferred');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Queue_Deferred already exists, skipping');
+    END IF;
+END;
+/
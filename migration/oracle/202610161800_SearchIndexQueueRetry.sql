@@ -0,0 +1,31 @@
+-- Search index queue retry (Oracle)
+-- Migration Date: 2026-10-16 18:00
+-- Description:
+--   Adds T_SearchIndex_Queue.RetryCount and DateNextRun, failed changes are
+--   claimed again after DateNextRun until SEARCH_INDEX_QUEUE_MAX_RETRIES is reached
+
+SELECT register_migration_script('202610161800_SearchIndexQueueRetry.sql') FROM dual;
+
+SET SQLBLANKLINES ON
+SET DEFINE OFF
+
+DECLARE
+    v_count NUMBER;
+BEGIN
+    SELECT COUNT(*) INTO v_count FROM user_tab_columns WHERE table_name = 'T_SEARCHINDEX_QUEUE' AND column_name = 'RETRYCOUNT';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'ALTER TABLE T_SearchIndex_Queue ADD RetryCount NUMBER(10) DEFAULT 0 NOT NULL';
+        DBMS_OUTPUT.PUT_LINE('✓ Added T_SearchIndex_Queue.RetryCount');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Queue.RetryCount already exists, skipping');
+    END IF;
+
+    SELECT COUNT(*) INTO v_count FROM user_tab_columns WHERE table_name = 'T_SEARCHINDEX_QUEUE' AND column_name = 'DATENEXTRUN';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'ALTER TABLE T_SearchIndex_Queue ADD DateNextRun DATE';
+        DBMS_OUTPUT.PUT_LINE('✓ Added T_SearchIndex_Queue.DateNextRun');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Queue.DateNextRun already exists, skipping');
+    END IF;
+END;
+/
@@ -0,0 +1,23 @@
+-- Search index queue resolved changes (Oracle)
+-- Migration Date: 2026-10-16 19:00
+-- Description:
+--   Adds T_SearchIndex_Queue.AD_SearchIndex_ID, changes marked dirty by the saturated
+--   work queue are applied without resolving the FK references again
+
+SELECT register_migration_script('202610161900_SearchIndexQueueResolved.sql') FROM dual;
+
+SET SQLBLANKLINES ON
+SET DEFINE OFF
+
+DECLARE
+    v_count NUMBER;
+BEGIN
+    SELECT COUNT(*) INTO v_count FROM user_tab_columns WHERE table_name = 'T_SEARCHINDEX_QUEUE' AND column_name = 'AD_SEARCHINDEX_ID';
+    IF v_count = 0 THEN
+        EXECUTE IMMEDIATE 'ALTER TABLE T_SearchIndex_Queue ADD AD_SearchIndex_ID NUMBER(10) DEFAULT 0 NOT NULL';
+        DBMS_OUTPUT.PUT_LINE('✓ Added T_SearchIndex_Queue.AD_SearchIndex_ID');
+    ELSE
+        DBMS_OUTPUT.PUT_LINE('⚠ T_SearchIndex_Queue.AD_SearchIndex_ID already exists, skipping');
+    END IF;
+END;
+/
@@ -0,0 +1,45 @@
+SELECT register_migration_script('202610161200_SearchIndexBulkLoad.sql') FROM dual;
+
+-- Migration: Staging objects for COPY-based bulk load of search indexes
+-- Date: 2026-10-16
+-- Description: Creates the UNLOGGED staging table T_SearchIndex_Stage and the
+--              searchindex_tsvector_agg aggregate used by PGTextSearchIndexProvider.bulkLoadIndex()
+--
+-- Bulk load is enabled with SysConfig SEARCH_INDEX_BULK_LOAD=Y.
+-- Without these objects the provider falls back to batched upserts.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index bulk load objects';
+    RAISE NOTICE '========================================';
+
+    -- Staging table, rows are only kept inside the loading transaction
+    IF NOT EXISTS (SELECT 1 FROM pg_class WHERE relname = 't_searchindex_stage') THEN
+        CREATE UNLOGGED TABLE t_searchindex_stage (
+            ad_client_id NUMERIC(10) NOT NULL,
+            ad_table_id NUMERIC(10) NOT NULL,
+            record_id NUMERIC(10) NOT NULL,
+            seqno NUMERIC(10) NOT NULL,
+            tsweight CHAR(1) NOT NULL,
+            value TEXT,
+            normalized TEXT
+        );
+        RAISE NOTICE '  ✓ Created t_searchindex_stage';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_stage already exists, skipping creation';
+    END IF;
+
+    -- Concatenates tsvectors like the || operator (positions of later parts are shifted)
+    IF NOT EXISTS (SELECT 1 FROM pg_proc WHERE proname = 'searchindex_tsvector_agg') THEN
+        CREATE AGGREGATE searchindex_tsvector_agg(tsvector) (
+            SFUNC = tsvector_concat,
+            STYPE = tsvector,
+            INITCOND = ''
+        );
+        RAISE NOTICE '  ✓ Created searchindex_tsvector_agg aggregate';
+    ELSE
+        RAISE NOTICE '  ⚠ searchindex_tsvector_agg already exists, skipping creation';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;
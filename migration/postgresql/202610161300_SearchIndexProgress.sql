@@ -0,0 +1,30 @@
+SELECT register_migration_script('202610161300_SearchIndexProgress.sql') FROM dual;
+
+-- Migration: Checkpoint table for resumable search index rebuilds
+-- Date: 2026-10-16
+-- Description: Creates T_SearchIndex_Progress used by CreateSearchIndex when
+--              SysConfig SEARCH_INDEX_REINDEX_RESUMABLE=Y. A row per search index table
+--              holds the last indexed Record_ID of an unfinished rebuild.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index rebuild checkpoints';
+    RAISE NOTICE '========================================';
+
+    IF NOT EXISTS (SELECT 1 FROM pg_class WHERE relname = 't_searchindex_progress') THEN
+        CREATE TABLE t_searchindex_progress (
+            ad_client_id NUMERIC(10) NOT NULL,
+            ad_searchindex_id NUMERIC(10) NOT NULL,
+            ad_table_id NUMERIC(10) NOT NULL,
+            last_record_id NUMERIC(10) DEFAULT 0 NOT NULL,
+            iscompleted CHAR(1) DEFAULT 'N' NOT NULL,
+            updated TIMESTAMP DEFAULT statement_timestamp() NOT NULL,
+            CONSTRAINT t_searchindex_progress_key PRIMARY KEY (ad_client_id, ad_searchindex_id, ad_table_id)
+        );
+        RAISE NOTICE '  ✓ Created t_searchindex_progress';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_progress already exists, skipping creation';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;
@@ -0,0 +1,24 @@
+SELECT register_migration_script('202610161400_SearchIndexDateLastRun.sql') FROM dual;
+
+-- Migration: Last run of a search index for delta reindex
+-- Date: 2026-10-16
+-- Description: Adds AD_SearchIndex.DateLastRun, set by CreateSearchIndex to the start
+--              of each successful run. A delta reindex (IsDelta=Y or SysConfig
+--              SEARCH_INDEX_REINDEX_DELTA=Y) reindexes only records updated after it.
+--              The dictionary (AD_Column DateLastRun with its AD_Field, AD_Process_Para
+--              IsDelta of CreateSearchIndex) ships in META-INF/2Pack_1.0.6.zip.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index last run';
+    RAISE NOTICE '========================================';
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'ad_searchindex' AND column_name = 'datelastrun') THEN
+        ALTER TABLE ad_searchindex ADD COLUMN datelastrun TIMESTAMP;
+        RAISE NOTICE '  ✓ Added ad_searchindex.datelastrun';
+    ELSE
+        RAISE NOTICE '  ⚠ ad_searchindex.datelastrun already exists, skipping';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;
@@ -0,0 +1,32 @@
+SELECT register_migration_script('202610161500_SearchIndexContentHash.sql') FROM dual;
+
+-- Migration: Content hash of search index rows
+-- Date: 2026-10-16
+-- Description: Adds idx_hash (md5 of idx_tsvector as uuid) to the existing search index
+--              tables. Upserts of the PostgreSQL Text Search provider skip rows whose
+--              hash did not change, avoiding WAL, GIN pending list and vacuum load.
+--              Existing rows get their hash on the next write.
+--              Tables without the column are indexed without the hash, the
+--              provider does not alter index tables at runtime.
+
+DO $$
+DECLARE
+    v_table TEXT;
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index content hash';
+    RAISE NOTICE '========================================';
+
+    FOR v_table IN
+        SELECT DISTINCT lower(si.searchindexname) FROM ad_searchindex si
+        JOIN pg_class c ON (c.relname = lower(si.searchindexname) AND c.relkind = 'r')
+    LOOP
+        IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = v_table AND column_name = 'idx_hash') THEN
+            EXECUTE format('ALTER TABLE %I ADD COLUMN idx_hash UUID', v_table);
+            RAISE NOTICE '  ✓ Added idx_hash to %', v_table;
+        ELSE
+            RAISE NOTICE '  ⚠ % already has idx_hash, skipping', v_table;
+        END IF;
+    END LOOP;
+
+    RAISE NOTICE '========================================';
+END $$;
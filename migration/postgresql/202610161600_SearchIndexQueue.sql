@@ -0,0 +1,30 @@
+SELECT register_migration_script('202610161600_SearchIndexQueue.sql') FROM dual;
+
+-- Migration: Outbox queue of search index events
+-- Date: 2026-10-16
+-- Description: Creates T_SearchIndex_Queue. With SysConfig SEARCH_INDEX_EVENT_QUEUE=Y the
+--              event handler inserts the changed records in the business transaction and
+--              background workers index them after commit.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index event queue';
+    RAISE NOTICE '========================================';
+
+    IF NOT EXISTS (SELECT 1 FROM pg_class WHERE relname = 't_searchindex_queue') THEN
+        CREATE TABLE t_searchindex_queue (
+            t_searchindex_queue_id BIGSERIAL NOT NULL,
+            ad_client_id NUMERIC(10) NOT NULL,
+            ad_table_id NUMERIC(10) NOT NULL,
+            record_id NUMERIC(10) NOT NULL,
+            eventtype CHAR(1) NOT NULL,
+            created TIMESTAMP DEFAULT statement_timestamp() NOT NULL,
+            CONSTRAINT t_searchindex_queue_key PRIMARY KEY (t_searchindex_queue_id)
+        );
+        RAISE NOTICE '  ✓ Created t_searchindex_queue';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_queue already exists, skipping creation';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;
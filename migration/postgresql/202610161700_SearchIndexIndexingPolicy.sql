@@ -0,0 +1,38 @@
+SELECT register_migration_script('202610161700_SearchIndexIndexingPolicy.sql') FROM dual;
+
+-- Migration: Indexing policy per search index table
+-- Date: 2026-10-16
+-- Description: Adds AD_SearchIndexTable.IndexingPolicy (S = synchronous, A = asynchronous queue,
+--              D = deferred) and T_SearchIndex_Queue.IsDeferred. Deferred changes stay in the
+--              queue until the Update Deferred Search Index process indexes them in batches.
+--              The dictionary (AD_Column IndexingPolicy with its list reference, AD_Field,
+--              AD_Process UpdateDeferredSearchIndex) ships in META-INF/2Pack_1.0.6.zip.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index indexing policy';
+    RAISE NOTICE '========================================';
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'ad_searchindextable' AND column_name = 'indexingpolicy') THEN
+        ALTER TABLE ad_searchindextable ADD COLUMN indexingpolicy CHAR(1) DEFAULT 'S' NOT NULL;
+        RAISE NOTICE '  ✓ Added ad_searchindextable.indexingpolicy';
+    ELSE
+        RAISE NOTICE '  ⚠ ad_searchindextable.indexingpolicy already exists, skipping';
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 't_searchindex_queue' AND column_name = 'isdeferred') THEN
+        ALTER TABLE t_searchindex_queue ADD COLUMN isdeferred CHAR(1) DEFAULT 'N' NOT NULL;
+        RAISE NOTICE '  ✓ Added t_searchindex_queue.isdeferred';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_queue.isdeferred already exists, skipping';
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_class WHERE relname = 't_searchindex_queue_deferred') THEN
+        CREATE INDEX t_searchindex_queue_deferred ON t_searchindex_queue (isdeferred, t_searchindex_queue_id);
+        RAISE NOTICE '  ✓ Created index t_searchindex_queue_deferred';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_queue_deferred already exists, skipping';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;
@@ -0,0 +1,29 @@
+SELECT register_migration_script('202610161800_SearchIndexQueueRetry.sql') FROM dual;
+
+-- Migration: Retry of failed search index queue changes
+-- Date: 2026-10-16
+-- Description: Adds T_SearchIndex_Queue.RetryCount and DateNextRun. Changes which fail to
+--              index stay in the queue, they are claimed again after DateNextRun until
+--              SEARCH_INDEX_QUEUE_MAX_RETRIES is reached and are kept for inspection afterwards.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index queue retry';
+    RAISE NOTICE '========================================';
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 't_searchindex_queue' AND column_name = 'retrycount') THEN
+        ALTER TABLE t_searchindex_queue ADD COLUMN retrycount NUMERIC(10) DEFAULT 0 NOT NULL;
+        RAISE NOTICE '  ✓ Added t_searchindex_queue.retrycount';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_queue.retrycount already exists, skipping';
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 't_searchindex_queue' AND column_name = 'datenextrun') THEN
+        ALTER TABLE t_searchindex_queue ADD COLUMN datenextrun TIMESTAMP;
+        RAISE NOTICE '  ✓ Added t_searchindex_queue.datenextrun';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_queue.datenextrun already exists, skipping';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;
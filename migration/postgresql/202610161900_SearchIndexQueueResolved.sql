@@ -0,0 +1,22 @@
+SELECT register_migration_script('202610161900_SearchIndexQueueResolved.sql') FROM dual;
+
+-- Migration: Resolved changes in the search index queue
+-- Date: 2026-10-16
+-- Description: Adds T_SearchIndex_Queue.AD_SearchIndex_ID. Changes marked dirty by the saturated
+--              work queue are already resolved to index records, the workers apply them without
+--              resolving the FK references again. 0 is a changed record queued by the event handler.
+
+DO $$
+BEGIN
+    RAISE NOTICE 'Starting migration: Search index queue resolved changes';
+    RAISE NOTICE '========================================';
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 't_searchindex_queue' AND column_name = 'ad_searchindex_id') THEN
+        ALTER TABLE t_searchindex_queue ADD COLUMN ad_searchindex_id NUMERIC(10) DEFAULT 0 NOT NULL;
+        RAISE NOTICE '  ✓ Added t_searchindex_queue.ad_searchindex_id';
+    ELSE
+        RAISE NOTICE '  ⚠ t_searchindex_queue.ad_searchindex_id already exists, skipping';
+    END IF;
+
+    RAISE NOTICE '========================================';
+END $$;